@@ -0,0 +1,207 @@
+package org.appfuse.benchmarks;
+
+import org.appfuse.dao.RoleDao;
+import org.appfuse.dao.UserDao;
+import org.appfuse.model.Role;
+import org.appfuse.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the hot paths of the DAO framework this module was built with (-Ddao.framework=hibernate
+ * or jpa) against an in-memory H2 database seeded with {@link #userCount} users spread over
+ * {@link #roleCount} roles. Each operation runs in its own transaction, as it would when called from a
+ * manager, and picks a random user or role so caches see a realistic spread of keys.
+ * <p/>
+ * Latency is sampled per call, and the GC profiler reports allocation rates (gc.alloc.rate.norm is
+ * bytes per call). Results are also written to target/jmh-&lt;dao.framework&gt;.json so runs of the
+ * frameworks, or of one framework before and after a change, can be compared. Run from data/benchmarks,
+ * after <code>mvn install -Pbenchmarks -DskipTests</code> from the top, with:
+ * <pre>
+ * mvn exec:exec -Ddao.framework=jpa -Dbenchmark.args="-p userCount=100000"
+ * </pre>
+ * iBATIS isn't covered: its module isn't built (see data/pom.xml) and has no search or named queries.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaoBenchmarks {
+    @Param("10000")
+    private int userCount;
+
+    @Param("10")
+    private int roleCount;
+
+    private ClassPathXmlApplicationContext ctx;
+    private UserDao userDao;
+    private RoleDao roleDao;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private final List<Long> userIds = new ArrayList<Long>();
+    private final List<String> roleNames = new ArrayList<String>();
+
+    @Setup
+    public void setUp() {
+        ctx = new ClassPathXmlApplicationContext("classpath:/applicationContext-resources.xml",
+                "classpath:/applicationContext-dao.xml");
+        userDao = ctx.getBean(UserDao.class);
+        roleDao = ctx.getBean(RoleDao.class);
+        PlatformTransactionManager transactionManager = ctx.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readWrite.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                seed();
+            }
+        });
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    private void seed() {
+        List<Role> roles = new ArrayList<Role>(roleCount);
+        for (int i = 0; i < roleCount; i++) {
+            Role role = new Role("ROLE_BENCH" + i);
+            role.setDescription("Benchmark role " + i);
+            roles.add(role);
+            roleNames.add(role.getName());
+        }
+        roleDao.saveAll(roles);
+
+        List<User> users = new ArrayList<User>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            User user = new User("benchuser" + i);
+            user.setPassword("benchpass");
+            user.setFirstName("Bench");
+            user.setLastName("User" + i);
+            user.setEmail("benchuser" + i + "@appfuse.org");
+            user.getAddress().setCity("Denver");
+            user.getAddress().setPostalCode("80210");
+            user.addRole(roles.get(i % roleCount));
+            users.add(user);
+        }
+        userDao.saveAll(users);
+        for (User user : users) {
+            userIds.add(user.getId());
+        }
+    }
+
+    @Benchmark
+    public User get() {
+        final Long id = randomUserId();
+        return readOnly.execute(new TransactionCallback<User>() {
+            public User doInTransaction(TransactionStatus status) {
+                return userDao.get(id);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<User> getAll() {
+        return readOnly.execute(new TransactionCallback<List<User>>() {
+            public List<User> doInTransaction(TransactionStatus status) {
+                return userDao.getAll();
+            }
+        });
+    }
+
+    @Benchmark
+    public UserDetails loadUserByUsername() {
+        final String username = "benchuser" + ThreadLocalRandom.current().nextInt(userCount);
+        return readOnly.execute(new TransactionCallback<UserDetails>() {
+            public UserDetails doInTransaction(TransactionStatus status) {
+                return userDao.loadUserByUsername(username);
+            }
+        });
+    }
+
+    /**
+     * Loads a user, changes it and saves it, as the user form does.
+     */
+    @Benchmark
+    public User saveUser() {
+        final Long id = randomUserId();
+        return readWrite.execute(new TransactionCallback<User>() {
+            public User doInTransaction(TransactionStatus status) {
+                User user = userDao.get(id);
+                user.setPhoneNumber(String.valueOf(System.nanoTime()));
+                return userDao.saveUser(user);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<User> search() {
+        final String username = "benchuser" + ThreadLocalRandom.current().nextInt(userCount);
+        return readOnly.execute(new TransactionCallback<List<User>>() {
+            public List<User> doInTransaction(TransactionStatus status) {
+                return userDao.search(username);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Role> findByNamedQuery() {
+        final String name = roleNames.get(ThreadLocalRandom.current().nextInt(roleCount));
+        return readOnly.execute(new TransactionCallback<List<Role>>() {
+            public List<Role> doInTransaction(TransactionStatus status) {
+                return roleDao.findByNamedQuery("findRoleByName", Collections.<String, Object>singletonMap("name", name));
+            }
+        });
+    }
+
+    private Long randomUserId() {
+        return userIds.get(ThreadLocalRandom.current().nextInt(userIds.size()));
+    }
+
+    /**
+     * Runs all benchmarks. Arguments are passed on to JMH, e.g. <code>-p userCount=100000 -t 4</code>.
+     */
+    public static void main(String[] args) throws Exception {
+        String framework = System.getProperty("dao.framework", "hibernate");
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(DaoBenchmarks.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-" + framework + ".json")
+                .build()).run();
+    }
+}
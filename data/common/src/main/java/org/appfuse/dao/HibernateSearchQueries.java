@@ -0,0 +1,243 @@
+package org.appfuse.dao;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.queryParser.MultiFieldQueryParser;
+import org.apache.lucene.queryParser.ParseException;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.util.Version;
+import org.hibernate.search.SearchFactory;
+import org.hibernate.search.annotations.Index;
+import org.hibernate.search.engine.metadata.impl.DocumentFieldMetadata;
+import org.hibernate.search.engine.metadata.impl.EmbeddedTypeMetadata;
+import org.hibernate.search.engine.metadata.impl.PropertyMetadata;
+import org.hibernate.search.engine.metadata.impl.TypeMetadata;
+import org.hibernate.search.engine.spi.EntityIndexBinding;
+import org.hibernate.search.metadata.FieldDescriptor;
+import org.hibernate.search.spi.SearchFactoryIntegrator;
+
+/**
+ * Builds the lucene queries and sorts of the Hibernate and JPA DAOs' full text searches. The fields of an
+ * entity are read from its Hibernate Search mapping, so a field is searched and sortable even when it is
+ * empty in every indexed document.
+ *
+ * @author jgarcia
+ */
+public final class HibernateSearchQueries {
+    private static final Log log = LogFactory.getLog(HibernateSearchQueries.class);
+
+    /**
+     * Suffix of the untokenized index fields used to sort on a property, e.g. "username_sort" for "username".
+     * Declare them with <code>@Field(name = "username_sort", analyze = Analyze.NO)</code>.
+     */
+    public static final String SORT_FIELD_SUFFIX = "_sort";
+
+    /**
+     * Maximum number of parsed queries kept in the query cache
+     */
+    static final int MAX_CACHED_QUERIES = 256;
+
+    /**
+     * Indexed field names of each entity, read once from the mapping
+     */
+    private static final ConcurrentMap<Class, Collection<String>> indexedFieldsCache =
+            new ConcurrentHashMap<Class, Collection<String>>();
+
+    /**
+     * Least recently used parsed queries, keyed by entity, search term and analyzer
+     */
+    private static final Map<QueryKey, Query> queryCache = Collections.synchronizedMap(
+            new LinkedHashMap<QueryKey, Query>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<QueryKey, Query> eldest) {
+                    return size() > MAX_CACHED_QUERIES;
+                }
+            });
+
+    private HibernateSearchQueries() {
+    }
+
+    /**
+     * Generates a lucene query to search for a given term in all the indexed fields of a class
+     *
+     * @param searchTerm the term to search for
+     * @param searchedEntity the class searched
+     * @param searchFactory the hibernate search factory
+     * @param defaultAnalyzer the default analyzer for parsing the search terms
+     * @return the query
+     * @throws ParseException if the search term can't be parsed
+     */
+    public static Query generateQuery(String searchTerm, Class searchedEntity, SearchFactory searchFactory,
+                                      Analyzer defaultAnalyzer) throws ParseException {
+        if (searchTerm.equals("*")) {
+            return new MatchAllDocsQuery();
+        }
+
+        // obtain analyzer to parse the query:
+        Analyzer analyzer;
+        if (searchedEntity == null) {
+            analyzer = defaultAnalyzer;
+        } else {
+            analyzer = searchFactory.getAnalyzer(searchedEntity);
+        }
+
+        QueryKey key = new QueryKey(searchedEntity, searchTerm, analyzer);
+        Query cached = queryCache.get(key);
+        if (cached != null) {
+            // queries are mutable (e.g. setBoost), so never hand out the cached instance
+            return (Query) cached.clone();
+        }
+
+        // search on all indexed fields, except the untokenized copies kept only for sorting
+        Collection<String> fieldNames = new HashSet<>();
+        for (String fieldName : getIndexedFieldNames(searchedEntity, searchFactory)) {
+            if (!fieldName.endsWith(SORT_FIELD_SUFFIX)) {
+                fieldNames.add(fieldName);
+            }
+        }
+        String[] fnames = fieldNames.toArray(new String[fieldNames.size()]);
+
+        // To search on all fields, search the term in all fields
+        String[] queries = new String[fnames.length];
+        for (int i = 0; i < queries.length; ++i) {
+            queries[i] = searchTerm;
+        }
+
+        Query qry = MultiFieldQueryParser.parse(Version.LUCENE_36, queries, fnames, analyzer);
+        if (fnames.length > 0) {
+            queryCache.put(key, (Query) qry.clone());
+        }
+        return qry;
+    }
+
+    /**
+     * Generates a lucene sort on a property of a class, using its untokenized "_sort" field when it is indexed
+     *
+     * @param sortProperty the property to sort by, null for relevance order
+     * @param ascending true to sort ascending, false to sort descending
+     * @param searchedEntity the class searched
+     * @param searchFactory the hibernate search factory
+     * @return the sort, or null to keep relevance order
+     */
+    public static Sort generateSort(String sortProperty, boolean ascending, Class searchedEntity,
+                                    SearchFactory searchFactory) {
+        if (sortProperty == null) {
+            return null;
+        }
+
+        Collection<String> fieldNames = getIndexedFieldNames(searchedEntity, searchFactory);
+        String sortField;
+        if (fieldNames.contains(sortProperty + SORT_FIELD_SUFFIX)) {
+            sortField = sortProperty + SORT_FIELD_SUFFIX;
+        } else if (fieldNames.contains(sortProperty)) {
+            sortField = sortProperty;
+        } else {
+            log.warn("No indexed field to sort " + searchedEntity + " by '" + sortProperty + "', using relevance order");
+            return null;
+        }
+        return new Sort(new SortField(sortField, SortField.STRING, !ascending));
+    }
+
+    /**
+     * Reads the names of all the indexed fields of a class from its Hibernate Search mapping, including
+     * those of <code>@IndexedEmbedded</code> properties such as "address.city". The result is cached, as
+     * the mapping only changes with a redeploy.
+     *
+     * @param searchedEntity the class searched
+     * @param searchFactory the hibernate search factory
+     * @return the indexed field names
+     */
+    public static Collection<String> getIndexedFieldNames(Class searchedEntity, SearchFactory searchFactory) {
+        Collection<String> fieldNames = indexedFieldsCache.get(searchedEntity);
+        if (fieldNames != null) {
+            return fieldNames;
+        }
+
+        fieldNames = new HashSet<>();
+        for (FieldDescriptor field : searchFactory.getIndexedTypeDescriptor(searchedEntity).getIndexedFields()) {
+            if (field.getIndex() == Index.YES) {
+                fieldNames.add(field.getName());
+            }
+        }
+        // the public metadata leaves out embedded fields, which only the engine's type metadata lists
+        if (searchFactory instanceof SearchFactoryIntegrator) {
+            EntityIndexBinding binding = ((SearchFactoryIntegrator) searchFactory).getIndexBinding(searchedEntity);
+            if (binding != null) {
+                addEmbeddedFieldNames(binding.getDocumentBuilder().getMetadata(), fieldNames);
+            }
+        }
+
+        fieldNames = Collections.unmodifiableCollection(fieldNames);
+        Collection<String> existing = indexedFieldsCache.putIfAbsent(searchedEntity, fieldNames);
+        return existing != null ? existing : fieldNames;
+    }
+
+    private static void addEmbeddedFieldNames(TypeMetadata metadata, Collection<String> fieldNames) {
+        for (EmbeddedTypeMetadata embedded : metadata.getEmbeddedTypeMetadata()) {
+            for (PropertyMetadata property : embedded.getAllPropertyMetadata()) {
+                for (DocumentFieldMetadata field : property.getFieldMetadata()) {
+                    // names already carry the embedding prefix, e.g. "address."
+                    if (field.getIndex().isIndexed()) {
+                        fieldNames.add(field.getName());
+                    }
+                }
+            }
+            addEmbeddedFieldNames(embedded, fieldNames);
+        }
+    }
+
+    /**
+     * Drops all the cached field names and parsed queries
+     */
+    public static void clearCaches() {
+        indexedFieldsCache.clear();
+        queryCache.clear();
+    }
+
+    /**
+     * Key of the query cache
+     */
+    private static final class QueryKey {
+        private final Class entity;
+        private final String searchTerm;
+        private final Analyzer analyzer;
+
+        QueryKey(Class entity, String searchTerm, Analyzer analyzer) {
+            this.entity = entity;
+            this.searchTerm = searchTerm;
+            this.analyzer = analyzer;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof QueryKey)) {
+                return false;
+            }
+            QueryKey other = (QueryKey) o;
+            return (entity != null ? entity.equals(other.entity) : other.entity == null)
+                    && searchTerm.equals(other.searchTerm) && analyzer == other.analyzer;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = entity != null ? entity.hashCode() : 0;
+            result = 31 * result + searchTerm.hashCode();
+            return 31 * result + System.identityHashCode(analyzer);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Embedded;
 import javax.persistence.Entity;
@@ -26,11 +27,16 @@ import javax.xml.bind.annotation.XmlTransient;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 import org.codehaus.jackson.annotate.JsonIgnore;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Fetch;
 import org.hibernate.annotations.FetchMode;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.search.annotations.Analyze;
 import org.hibernate.search.annotations.DocumentId;
 import org.hibernate.search.annotations.Field;
+import org.hibernate.search.annotations.Fields;
 import org.hibernate.search.annotations.Indexed;
 import org.hibernate.search.annotations.IndexedEmbedded;
 import org.springframework.security.core.GrantedAuthority;
@@ -47,6 +53,9 @@ import org.springframework.security.core.userdetails.UserDetails;
  */
 @Entity
 @Table(name = "app_user")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @Indexed
 @XmlRootElement
 public class User extends BaseObject implements Serializable, UserDetails {
@@ -69,6 +78,7 @@ public class User extends BaseObject implements Serializable, UserDetails {
     private boolean accountExpired;
     private boolean accountLocked;
     private boolean credentialsExpired;
+    private Boolean passwordChanged;
 
     /**
      * Default constructor - creates a new instance with no values set.
@@ -93,7 +103,8 @@ public class User extends BaseObject implements Serializable, UserDetails {
     }
 
     @Column(nullable = false, length = 50, unique = true)
-    @Field
+    @NaturalId(mutable = true)
+    @Fields({@Field, @Field(name = "username_sort", analyze = Analyze.NO)})
     public String getUsername() {
         return username;
     }
@@ -119,19 +130,19 @@ public class User extends BaseObject implements Serializable, UserDetails {
     }
 
     @Column(name = "first_name", nullable = false, length = 50)
-    @Field
+    @Fields({@Field, @Field(name = "firstName_sort", analyze = Analyze.NO)})
     public String getFirstName() {
         return firstName;
     }
 
     @Column(name = "last_name", nullable = false, length = 50)
-    @Field
+    @Fields({@Field, @Field(name = "lastName_sort", analyze = Analyze.NO)})
     public String getLastName() {
         return lastName;
     }
 
     @Column(nullable = false, unique = true)
-    @Field
+    @Fields({@Field, @Field(name = "email_sort", analyze = Analyze.NO)})
     public String getEmail() {
         return email;
     }
@@ -165,6 +176,7 @@ public class User extends BaseObject implements Serializable, UserDetails {
 
     @ManyToMany(fetch = FetchType.EAGER)
     @Fetch(FetchMode.SELECT)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
     @JoinTable(
             name = "user_role",
             joinColumns = { @JoinColumn(name = "user_id") },
@@ -214,12 +226,35 @@ public class User extends BaseObject implements Serializable, UserDetails {
         return authorities;
     }
 
+    /**
+     * Whether the password was replaced by a different value. The first value set on an
+     * instance, e.g. by the persistence framework loading it or by a web framework binding
+     * a new instance, could be anything, so it leaves this unknown.
+     *
+     * @return true if the password was set to a different value than it had, false if it
+     *         was only set to the same value again, null if that isn't known
+     */
+    @Transient
+    @JsonIgnore
+    @XmlTransient
+    public Boolean getPasswordChanged() {
+        return passwordChanged;
+    }
+
+    /**
+     * Records that the current password is the one that is stored, e.g. after saving.
+     */
+    public void resetPasswordChanged() {
+        passwordChanged = (password != null) ? Boolean.FALSE : null;
+    }
+
     @Version
     public Integer getVersion() {
         return version;
     }
 
     @Column(name = "account_enabled")
+    @Field(name = "enabled_sort", analyze = Analyze.NO)
     public boolean isEnabled() {
         return enabled;
     }
@@ -275,6 +310,9 @@ public class User extends BaseObject implements Serializable, UserDetails {
     }
 
     public void setPassword(String password) {
+        if (this.password != null && !Boolean.TRUE.equals(passwordChanged)) {
+            passwordChanged = !this.password.equals(password);
+        }
         this.password = password;
     }
 
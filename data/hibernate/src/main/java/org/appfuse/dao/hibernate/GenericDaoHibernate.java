@@ -5,12 +5,20 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.queryParser.ParseException;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.util.Version;
 import org.appfuse.dao.GenericDao;
+import org.appfuse.dao.ResultHandler;
 import org.appfuse.dao.SearchException;
 import org.hibernate.*;
+import org.hibernate.criterion.Order;
+import org.hibernate.criterion.Projections;
+import org.hibernate.criterion.Restrictions;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.metadata.ClassMetadata;
 import org.hibernate.search.FullTextSession;
 import org.hibernate.search.Search;
+import org.hibernate.type.Type;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.orm.ObjectRetrievalFailureException;
@@ -46,6 +54,7 @@ public class GenericDaoHibernate<T, PK extends Serializable> implements GenericD
     @Resource
     private SessionFactory sessionFactory;
     private Analyzer defaultAnalyzer;
+    private int batchSize = 50;
 
     /**
      * Constructor that takes in a class to see which type of entity to persist.
@@ -88,6 +97,16 @@ public class GenericDaoHibernate<T, PK extends Serializable> implements GenericD
         this.sessionFactory = sessionFactory;
     }
 
+    /**
+     * Number of objects saved or removed between two flushes by saveAll and removeAll (default 50).
+     * Keep it in line with hibernate.jdbc.batch_size so every flush sends full JDBC batches.
+     *
+     * @param batchSize the number of objects per batch
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -97,6 +116,107 @@ public class GenericDaoHibernate<T, PK extends Serializable> implements GenericD
         return sess.createCriteria(persistentClass).list();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getAll(int firstResult, int maxResults, String sortProperty, boolean ascending) {
+        Session sess = getSession();
+        Criteria criteria = sess.createCriteria(persistentClass);
+        ClassMetadata metadata = getSessionFactory().getClassMetadata(persistentClass);
+        if (sortProperty != null) {
+            checkSortProperty(metadata, sortProperty);
+            criteria.addOrder(ascending ? Order.asc(sortProperty) : Order.desc(sortProperty));
+        }
+        // always finish with the identifier so pages are stable when sort values repeat
+        String idProperty = metadata.getIdentifierPropertyName();
+        if (!idProperty.equals(sortProperty)) {
+            criteria.addOrder(ascending ? Order.asc(idProperty) : Order.desc(idProperty));
+        }
+        criteria.setFirstResult(firstResult);
+        criteria.setMaxResults(maxResults);
+        return criteria.list();
+    }
+
+    /**
+     * Checks that records can be ordered by a property: it must be persistent and hold a single value.
+     */
+    private void checkSortProperty(ClassMetadata metadata, String sortProperty) {
+        Type type;
+        try {
+            type = metadata.getPropertyType(sortProperty);
+        } catch (HibernateException e) {
+            throw new IllegalArgumentException("Unknown property '" + sortProperty + "' of "
+                    + persistentClass.getName(), e);
+        }
+        if (type.isCollectionType()) {
+            throw new IllegalArgumentException("Can't sort by collection '" + sortProperty + "' of "
+                    + persistentClass.getName());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getCount() {
+        Session sess = getSession();
+        Number count = (Number) sess.createCriteria(persistentClass)
+                .setProjection(Projections.rowCount()).uniqueResult();
+        return count.longValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getAllAfter(PK lastId, int maxResults) {
+        String idProperty = getSessionFactory().getClassMetadata(persistentClass).getIdentifierPropertyName();
+        Criteria criteria = getSession().createCriteria(persistentClass);
+        if (lastId != null) {
+            criteria.add(Restrictions.gt(idProperty, lastId));
+        }
+        return criteria.addOrder(Order.asc(idProperty))
+                .setMaxResults(maxResults)
+                .list();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public void scrollAll(int fetchSize, ResultHandler<T> handler) {
+        Session sess = getSession();
+        scrollAll(sess, sess.createCriteria(persistentClass)
+                .setFetchSize(fetchSize)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY), fetchSize, handler);
+    }
+
+    /**
+     * Walks forward through scrollable results, flushing and clearing the session after
+     * every fetchSize rows so that it never holds more than one batch of entities.
+     *
+     * @param sess the session the results were opened in
+     * @param results the results to walk through, closed when done
+     * @param fetchSize the number of rows between flush and clear
+     * @param handler the callback invoked for each row
+     */
+    @SuppressWarnings("unchecked")
+    protected void scrollAll(Session sess, ScrollableResults results, int fetchSize, ResultHandler<T> handler) {
+        try {
+            int count = 0;
+            while (results.next()) {
+                handler.handle((T) results.get(0));
+                if (++count % fetchSize == 0) {
+                    sess.flush();
+                    sess.clear();
+                }
+            }
+        } finally {
+            results.close();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -110,6 +230,36 @@ public class GenericDaoHibernate<T, PK extends Serializable> implements GenericD
      * {@inheritDoc}
      */
     public List<T> search(String searchTerm) throws SearchException {
+        return createFullTextQuery(searchTerm).list();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> search(String searchTerm, int firstResult, int maxResults, String sortProperty, boolean ascending)
+            throws SearchException {
+        if (sortProperty != null) {
+            checkSortProperty(getSessionFactory().getClassMetadata(persistentClass), sortProperty);
+        }
+        org.hibernate.search.FullTextQuery hibQuery = createFullTextQuery(searchTerm);
+        Sort sort = HibernateSearchTools.generateSort(sortProperty, ascending, this.persistentClass, getSession());
+        if (sort != null) {
+            hibQuery.setSort(sort);
+        }
+        hibQuery.setFirstResult(firstResult);
+        hibQuery.setMaxResults(maxResults);
+        return hibQuery.list();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long searchCount(String searchTerm) throws SearchException {
+        return createFullTextQuery(searchTerm).getResultSize();
+    }
+
+    private org.hibernate.search.FullTextQuery createFullTextQuery(String searchTerm) throws SearchException {
         Session sess = getSession();
         FullTextSession txtSession = Search.getFullTextSession(sess);
 
@@ -119,9 +269,7 @@ public class GenericDaoHibernate<T, PK extends Serializable> implements GenericD
         } catch (ParseException ex) {
             throw new SearchException(ex);
         }
-        org.hibernate.search.FullTextQuery hibQuery = txtSession.createFullTextQuery(qry,
-                this.persistentClass);
-        return hibQuery.list();
+        return txtSession.createFullTextQuery(qry, this.persistentClass);
     }
 
     /**
@@ -161,6 +309,44 @@ public class GenericDaoHibernate<T, PK extends Serializable> implements GenericD
         return (T) sess.merge(object);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void saveAll(Collection<T> objects) {
+        Session sess = getSession();
+        ClassMetadata metadata = getSessionFactory().getClassMetadata(persistentClass);
+        int count = 0;
+        for (T object : objects) {
+            // merge like save() does, but save new objects so their identifier is set and no copy is made
+            if (metadata.getIdentifier(object, (SessionImplementor) sess) == null) {
+                sess.save(object);
+            } else {
+                sess.merge(object);
+            }
+            if (++count % batchSize == 0) {
+                sess.flush();
+                sess.clear();
+            }
+        }
+        sess.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void removeAll(Collection<PK> ids) {
+        Session sess = getSession();
+        int count = 0;
+        for (PK id : ids) {
+            sess.delete(sess.load(persistentClass, id));
+            if (++count % batchSize == 0) {
+                sess.flush();
+                sess.clear();
+            }
+        }
+        sess.flush();
+    }
+
     /**
      * {@inheritDoc}
      */
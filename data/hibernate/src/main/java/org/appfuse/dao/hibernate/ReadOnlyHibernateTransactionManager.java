@@ -0,0 +1,91 @@
+package org.appfuse.dao.hibernate;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.orm.hibernate4.HibernateTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Map;
+
+/**
+ * HibernateTransactionManager that makes read-only transactions cheap on any Session,
+ * including one kept open by OpenSessionInViewFilter: the Session isn't flushed and loads
+ * entities read-only, so Hibernate keeps no snapshots of them and skips them when
+ * dirty checking. The JDBC connection is marked read-only by HibernateTransactionManager.
+ * <p/>
+ * When the transaction ends on a Session that was open before it, the Session's flush mode
+ * and default are restored and the entities it loaded are made modifiable again. An entity
+ * loaded by a get* method can then be changed and saved later in the same request (see
+ * APF-556). A Session opened for the transaction is closed with it, so nothing is restored.
+ */
+public class ReadOnlyHibernateTransactionManager extends HibernateTransactionManager {
+    private static final ReadOnlyState NOT_READ_ONLY = new ReadOnlyState(null, null, false);
+
+    private final ThreadLocal<Deque<ReadOnlyState>> states = new ThreadLocal<Deque<ReadOnlyState>>() {
+        @Override
+        protected Deque<ReadOnlyState> initialValue() {
+            return new ArrayDeque<ReadOnlyState>();
+        }
+    };
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        boolean preBound = TransactionSynchronizationManager.hasResource(getSessionFactory());
+        super.doBegin(transaction, definition);
+
+        ReadOnlyState state = NOT_READ_ONLY;
+        if (definition.isReadOnly()) {
+            Session session = getSessionFactory().getCurrentSession();
+            if (preBound) {
+                state = new ReadOnlyState(session, session.getFlushMode(), session.isDefaultReadOnly());
+            }
+            session.setFlushMode(FlushMode.MANUAL);
+            session.setDefaultReadOnly(true);
+        }
+        states.get().push(state);
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        Deque<ReadOnlyState> stack = states.get();
+        ReadOnlyState state = stack.poll();
+        if (stack.isEmpty()) {
+            states.remove();
+        }
+        if (state != null && state.session != null && state.session.isOpen()) {
+            state.restore();
+        }
+        super.doCleanupAfterCompletion(transaction);
+    }
+
+    private static final class ReadOnlyState {
+        private final Session session;
+        private final FlushMode flushMode;
+        private final boolean defaultReadOnly;
+
+        private ReadOnlyState(Session session, FlushMode flushMode, boolean defaultReadOnly) {
+            this.session = session;
+            this.flushMode = flushMode;
+            this.defaultReadOnly = defaultReadOnly;
+        }
+
+        private void restore() {
+            session.setFlushMode(flushMode);
+            session.setDefaultReadOnly(defaultReadOnly);
+            if (!defaultReadOnly) {
+                // the snapshot taken now is the loaded state, so later changes are flushed as usual
+                for (Map.Entry<Object, EntityEntry> entry
+                        : ((SessionImplementor) session).getPersistenceContext().reentrantSafeEntityEntries()) {
+                    if (entry.getValue().isReadOnly()) {
+                        session.setReadOnly(entry.getKey(), false);
+                    }
+                }
+            }
+        }
+    }
+}
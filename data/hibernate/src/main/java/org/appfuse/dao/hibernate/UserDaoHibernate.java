@@ -3,7 +3,6 @@ package org.appfuse.dao.hibernate;
 import org.appfuse.dao.UserDao;
 import org.appfuse.model.User;
 import org.hibernate.Query;
-import org.hibernate.criterion.Restrictions;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.orm.hibernate4.SessionFactoryUtils;
@@ -28,6 +27,11 @@ import java.util.List;
  */
 @Repository("userDao")
 public class UserDaoHibernate extends GenericDaoHibernate<User, Long> implements UserDao, UserDetailsService {
+    private static final String PASSWORD_QUERY = "select password from "
+            + AnnotationUtils.findAnnotation(User.class, Table.class).name() + " where id=?";
+
+    // created on first use and shared by all threads; volatile so none sees a half-built one
+    private volatile JdbcTemplate jdbcTemplate;
 
     /**
      * Constructor that sets the entity to User.class.
@@ -73,13 +77,16 @@ public class UserDaoHibernate extends GenericDaoHibernate<User, Long> implements
 
     /**
      * {@inheritDoc}
+     * <p/>
+     * Resolved through the username natural id, so repeat logins are served from the
+     * second-level cache. Hibernate updates those entries when a user is saved or removed.
      */
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        List users = getSession().createCriteria(User.class).add(Restrictions.eq("username", username)).list();
-        if (users == null || users.isEmpty()) {
+        User user = (User) getSession().bySimpleNaturalId(User.class).load(username);
+        if (user == null) {
             throw new UsernameNotFoundException("user '" + username + "' not found...");
         } else {
-            return (UserDetails) users.get(0);
+            return user;
         }
     }
 
@@ -87,10 +94,9 @@ public class UserDaoHibernate extends GenericDaoHibernate<User, Long> implements
      * {@inheritDoc}
      */
     public String getUserPassword(Long userId) {
-        JdbcTemplate jdbcTemplate =
-                new JdbcTemplate(SessionFactoryUtils.getDataSource(getSessionFactory()));
-        Table table = AnnotationUtils.findAnnotation(User.class, Table.class);
-        return jdbcTemplate.queryForObject(
-                "select password from " + table.name() + " where id=?", String.class, userId);
+        if (jdbcTemplate == null) {
+            jdbcTemplate = new JdbcTemplate(SessionFactoryUtils.getDataSource(getSessionFactory()));
+        }
+        return jdbcTemplate.queryForObject(PASSWORD_QUERY, String.class, userId);
     }
 }
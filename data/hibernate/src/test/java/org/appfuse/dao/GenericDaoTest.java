@@ -1,5 +1,6 @@
 package org.appfuse.dao;
 
+import org.apache.commons.lang.SerializationUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.appfuse.dao.hibernate.GenericDaoHibernate;
@@ -9,6 +10,10 @@ import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class GenericDaoTest extends BaseDaoTestCase {
@@ -28,4 +33,92 @@ public class GenericDaoTest extends BaseDaoTestCase {
         assertNotNull(user);
         assertEquals("user", user.getUsername());
     }
+
+    @Test
+    public void getAllPaged() {
+        assertEquals(3, genericDao.getCount());
+
+        List<User> page = genericDao.getAll(0, 2, "username", true);
+        assertEquals(2, page.size());
+        assertEquals("admin", page.get(0).getUsername());
+        assertEquals("two_roles_user", page.get(1).getUsername());
+
+        page = genericDao.getAll(2, 2, "username", true);
+        assertEquals(1, page.size());
+        assertEquals("user", page.get(0).getUsername());
+
+        page = genericDao.getAll(0, 1, "username", false);
+        assertEquals("user", page.get(0).getUsername());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getAllPagedRejectsUnknownSortProperty() {
+        genericDao.getAll(0, 2, "nickname", true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getAllPagedRejectsCollectionSortProperty() {
+        genericDao.getAll(0, 2, "roles", true);
+    }
+
+    @Test
+    public void getAllAfter() {
+        List<User> page = genericDao.getAllAfter(null, 2);
+        assertEquals(2, page.size());
+        assertTrue(page.get(0).getId() < page.get(1).getId());
+
+        List<User> rest = genericDao.getAllAfter(page.get(1).getId(), 2);
+        assertEquals(1, rest.size());
+        assertTrue(rest.get(0).getId() > page.get(1).getId());
+    }
+
+    @Test
+    public void scrollAll() {
+        final List<String> usernames = new ArrayList<String>();
+        genericDao.scrollAll(2, new ResultHandler<User>() {
+            public void handle(User user) {
+                usernames.add(user.getUsername());
+            }
+        });
+        assertEquals(3, usernames.size());
+        assertTrue(usernames.contains("admin"));
+    }
+
+    @Test
+    public void saveAllAndRemoveAll() {
+        List<User> users = new ArrayList<User>();
+        for (int i = 0; i < 3; i++) {
+            User user = new User("batchuser" + i);
+            user.setPassword("batchpass");
+            user.setFirstName("Batch");
+            user.setLastName("User" + i);
+            user.setEmail("batchuser" + i + "@appfuse.org");
+            user.getAddress().setCity("Denver");
+            user.getAddress().setPostalCode("80210");
+            users.add(user);
+        }
+
+        genericDao.saveAll(users);
+        assertEquals(6, genericDao.getCount());
+
+        List<Long> ids = new ArrayList<Long>();
+        for (User user : users) {
+            assertNotNull(user.getId());
+            ids.add(user.getId());
+        }
+
+        genericDao.removeAll(ids);
+        assertEquals(3, genericDao.getCount());
+    }
+
+    @Test
+    public void saveAllMergesDetachedObjects() {
+        User loaded = genericDao.get(-1L);
+        User detached = (User) SerializationUtils.clone(loaded);
+        detached.setPhoneNumber("303-555-0000");
+
+        // the same id is already in the session, which save() handles as well
+        genericDao.saveAll(Collections.singletonList(detached));
+        assertEquals("303-555-0000", genericDao.get(-1L).getPhoneNumber());
+    }
 }
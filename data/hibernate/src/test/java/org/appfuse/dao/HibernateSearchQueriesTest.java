@@ -0,0 +1,44 @@
+package org.appfuse.dao;
+
+import org.appfuse.model.User;
+import org.hibernate.SessionFactory;
+import org.hibernate.search.Search;
+import org.hibernate.search.SearchFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.util.Collection;
+
+import static org.junit.Assert.*;
+
+public class HibernateSearchQueriesTest extends BaseDaoTestCase {
+    @Autowired
+    SessionFactory sessionFactory;
+    private SearchFactory searchFactory;
+
+    @Before
+    public void setUp() {
+        HibernateSearchQueries.clearCaches();
+        searchFactory = Search.getFullTextSession(sessionFactory.getCurrentSession()).getSearchFactory();
+    }
+
+    @Test
+    public void fieldNamesComeFromTheMapping() {
+        // phoneNumber is empty in the sample data, and field names no longer depend on what is indexed
+        Collection<String> fieldNames = HibernateSearchQueries.getIndexedFieldNames(User.class, searchFactory);
+        assertTrue(fieldNames.contains("username"));
+        assertTrue(fieldNames.contains("username_sort"));
+        assertTrue(fieldNames.contains("phoneNumber"));
+        assertTrue(fieldNames.contains("website"));
+        assertTrue(fieldNames.contains("address.city"));
+        assertTrue(fieldNames.contains("address.postalCode"));
+        assertFalse(fieldNames.contains("password"));
+    }
+
+    @Test
+    public void sortUsesTheMappedSortField() {
+        assertNotNull(HibernateSearchQueries.generateSort("enabled", true, User.class, searchFactory));
+        assertNull(HibernateSearchQueries.generateSort("password", true, User.class, searchFactory));
+    }
+}
@@ -0,0 +1,76 @@
+package org.appfuse.dao.hibernate;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.util.Version;
+import org.appfuse.dao.HibernateSearchQueries;
+import org.appfuse.model.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the per-search overhead of {@link HibernateSearchTools#generateQuery}: "uncached" drops the
+ * field and query caches before every call (the behavior before they existed), "cached" reuses them.
+ * Run after <code>mvn test-compile</code> (which also loads the sample data) with:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.appfuse.dao.hibernate.HibernateSearchToolsBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HibernateSearchToolsBenchmark {
+    private ClassPathXmlApplicationContext ctx;
+    private Session session;
+    private StandardAnalyzer defaultAnalyzer = new StandardAnalyzer(Version.LUCENE_36);
+
+    @Setup
+    public void setUp() {
+        ctx = new ClassPathXmlApplicationContext("classpath:/applicationContext-resources.xml",
+                "classpath:/applicationContext-dao.xml");
+        session = ctx.getBean(SessionFactory.class).openSession();
+        HibernateSearchTools.reindex(User.class, session);
+    }
+
+    @TearDown
+    public void tearDown() {
+        session.close();
+        ctx.close();
+    }
+
+    @Benchmark
+    public Query uncached() throws Exception {
+        HibernateSearchQueries.clearCaches();
+        return HibernateSearchTools.generateQuery("Matt", User.class, session, defaultAnalyzer);
+    }
+
+    @Benchmark
+    public Query cached() throws Exception {
+        return HibernateSearchTools.generateQuery("Matt", User.class, session, defaultAnalyzer);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(HibernateSearchToolsBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,92 @@
+package org.appfuse.dao.hibernate;
+
+import org.appfuse.dao.BaseDaoTestCase;
+import org.appfuse.dao.UserDao;
+import org.appfuse.model.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.hibernate4.SessionHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.transaction.Transactional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Loads a user in a read-only transaction on a Session kept open for the "request", the way
+ * OpenSessionInViewFilter does, and saves a change to it afterwards (APF-556).
+ */
+@Transactional(Transactional.TxType.NOT_SUPPORTED)
+public class ReadOnlyHibernateTransactionManagerTest extends BaseDaoTestCase {
+    @Autowired
+    private UserDao userDao;
+    @Autowired
+    private SessionFactory sessionFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Before
+    public void setUp() {
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    public void testEntityLoadedReadOnlyCanBeSavedLater() {
+        final String phoneNumber = getUser().getPhoneNumber();
+
+        final Session session = sessionFactory.openSession();
+        TransactionSynchronizationManager.bindResource(sessionFactory, new SessionHolder(session));
+        try {
+            final User user = readOnly.execute(new TransactionCallback<User>() {
+                public User doInTransaction(TransactionStatus status) {
+                    User user = userDao.get(-1L);
+                    assertTrue(session.isReadOnly(user));
+                    return user;
+                }
+            });
+            assertFalse(session.isReadOnly(user));
+
+            user.setPhoneNumber("303-555-4321");
+            readWrite.execute(new TransactionCallback<User>() {
+                public User doInTransaction(TransactionStatus status) {
+                    return userDao.save(user);
+                }
+            });
+        } finally {
+            TransactionSynchronizationManager.unbindResource(sessionFactory);
+            session.close();
+        }
+
+        try {
+            assertEquals("303-555-4321", getUser().getPhoneNumber());
+        } finally {
+            readWrite.execute(new TransactionCallback<User>() {
+                public User doInTransaction(TransactionStatus status) {
+                    User user = userDao.get(-1L);
+                    user.setPhoneNumber(phoneNumber);
+                    return userDao.save(user);
+                }
+            });
+        }
+    }
+
+    private User getUser() {
+        return readOnly.execute(new TransactionCallback<User>() {
+            public User doInTransaction(TransactionStatus status) {
+                return userDao.get(-1L);
+            }
+        });
+    }
+}
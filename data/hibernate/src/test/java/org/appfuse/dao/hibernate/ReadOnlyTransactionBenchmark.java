@@ -0,0 +1,138 @@
+package org.appfuse.dao.hibernate;
+
+import org.appfuse.dao.UserDao;
+import org.appfuse.model.User;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.orm.hibernate4.SessionHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lists a page of {@link #pageSize} users the way a list page does behind OpenSessionInViewFilter:
+ * a Session is opened for the "request" and the page is read in a read-write or in a read-only
+ * transaction. The read-write transaction flushes and dirty checks every user it loaded on commit.
+ * {@link #userCount} users are inserted before and removed after the run.
+ * Run after <code>mvn test-compile</code> with:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.appfuse.dao.hibernate.ReadOnlyTransactionBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ReadOnlyTransactionBenchmark {
+    @Param("1000")
+    private int userCount;
+
+    @Param({"25", "500"})
+    private int pageSize;
+
+    private ClassPathXmlApplicationContext ctx;
+    private UserDao userDao;
+    private SessionFactory sessionFactory;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private final List<Long> userIds = new ArrayList<Long>();
+
+    @Setup
+    public void setUp() {
+        ctx = new ClassPathXmlApplicationContext("classpath:/applicationContext-resources.xml",
+                "classpath:/applicationContext-dao.xml");
+        userDao = ctx.getBean(UserDao.class);
+        sessionFactory = ctx.getBean(SessionFactory.class);
+        PlatformTransactionManager transactionManager = ctx.getBean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        final List<User> users = new ArrayList<User>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            User user = new User("benchuser" + i);
+            user.setPassword("benchpass");
+            user.setFirstName("Bench");
+            user.setLastName("User" + i);
+            user.setEmail("benchuser" + i + "@appfuse.org");
+            user.getAddress().setCity("Denver");
+            user.getAddress().setPostalCode("80210");
+            users.add(user);
+        }
+        readWrite.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                userDao.saveAll(users);
+            }
+        });
+        for (User user : users) {
+            userIds.add(user.getId());
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        readWrite.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                userDao.removeAll(userIds);
+            }
+        });
+        ctx.close();
+    }
+
+    @Benchmark
+    public List<User> listInReadWriteTransaction() {
+        return listInRequest(readWrite);
+    }
+
+    @Benchmark
+    public List<User> listInReadOnlyTransaction() {
+        return listInRequest(readOnly);
+    }
+
+    private List<User> listInRequest(TransactionTemplate transactionTemplate) {
+        Session session = sessionFactory.openSession();
+        TransactionSynchronizationManager.bindResource(sessionFactory, new SessionHolder(session));
+        try {
+            return transactionTemplate.execute(new TransactionCallback<List<User>>() {
+                public List<User> doInTransaction(TransactionStatus status) {
+                    return userDao.getAll(0, pageSize, "username", true);
+                }
+            });
+        } finally {
+            TransactionSynchronizationManager.unbindResource(sessionFactory);
+            session.close();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ReadOnlyTransactionBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
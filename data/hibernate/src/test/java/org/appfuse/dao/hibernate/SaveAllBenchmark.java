@@ -0,0 +1,108 @@
+package org.appfuse.dao.hibernate;
+
+import org.appfuse.dao.UserDao;
+import org.appfuse.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.support.ClassPathXmlApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Inserts {@link #userCount} users one by one through {@link UserDao#saveUser} (a flush per user) and in
+ * JDBC batches through {@link UserDao#saveAll}. Each run is rolled back, so the database is left untouched.
+ * Run after <code>mvn test-compile</code> with:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.appfuse.dao.hibernate.SaveAllBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class SaveAllBenchmark {
+    @Param("100000")
+    private int userCount;
+
+    private ClassPathXmlApplicationContext ctx;
+    private UserDao userDao;
+    private TransactionTemplate transactionTemplate;
+
+    @Setup
+    public void setUp() {
+        ctx = new ClassPathXmlApplicationContext("classpath:/applicationContext-resources.xml",
+                "classpath:/applicationContext-dao.xml");
+        userDao = ctx.getBean(UserDao.class);
+        transactionTemplate = new TransactionTemplate(ctx.getBean(PlatformTransactionManager.class));
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public void saveUserOneByOne() {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                for (User user : createUsers()) {
+                    userDao.saveUser(user);
+                }
+                status.setRollbackOnly();
+            }
+        });
+    }
+
+    @Benchmark
+    public void saveAll() {
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                userDao.saveAll(createUsers());
+                status.setRollbackOnly();
+            }
+        });
+    }
+
+    private List<User> createUsers() {
+        List<User> users = new ArrayList<User>(userCount);
+        for (int i = 0; i < userCount; i++) {
+            User user = new User("benchuser" + i);
+            user.setPassword("benchpass");
+            user.setFirstName("Bench");
+            user.setLastName("User" + i);
+            user.setEmail("benchuser" + i + "@appfuse.org");
+            user.getAddress().setCity("Denver");
+            user.getAddress().setPostalCode("80210");
+            users.add(user);
+        }
+        return users;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(SaveAllBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
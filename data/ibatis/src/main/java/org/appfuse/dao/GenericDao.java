@@ -1,6 +1,7 @@
 package org.appfuse.dao;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
 
 
@@ -23,6 +24,47 @@ public interface GenericDao <T, PK extends Serializable> {
      */
     List<T> getAll();
 
+    /**
+     * Gets one page of records, sorted and limited by the database so that only
+     * the requested rows are loaded, no matter how big the table is.
+     * Values are compared as the database compares the column, so whether "Bob" sorts
+     * before "alice" depends on the column's collation. Only the properties the paged
+     * statement lists are sorted on; other properties of the class sort by primary key.
+     * @param firstResult the index of the first record to return (zero-based)
+     * @param maxResults the maximum number of records to return
+     * @param sortProperty the property to sort by, or null to sort by primary key
+     * @param ascending true to sort ascending, false to sort descending
+     * @return List of populated objects in the requested page
+     * @throws IllegalArgumentException if sortProperty is not a property of the class
+     */
+    List<T> getAll(int firstResult, int maxResults, String sortProperty, boolean ascending);
+
+    /**
+     * Counts all records of a particular type, to go along with the paged getAll.
+     * @return the total number of records
+     */
+    long getCount();
+
+    /**
+     * Gets the records that follow lastId in primary key order, for walking through a whole
+     * table a page at a time. Each page seeks to the last id seen rather than skipping rows,
+     * so later pages cost no more than the first and rows added or removed in between
+     * don't shift records into a page twice or out of it.
+     * @param lastId the primary key of the last record of the previous page, or null for the first page
+     * @param maxResults the maximum number of records to return
+     * @return List of populated objects with a primary key greater than lastId, in primary key order
+     */
+    List<T> getAllAfter(PK lastId, int maxResults);
+
+    /**
+     * Streams all records of a particular type to a handler, one row at a time, so that
+     * memory use stays flat no matter how many rows there are.
+     * @param fetchSize the number of records read at a time; iBATIS reads each page with a
+     *        query of its own
+     * @param handler the callback invoked for each record
+     */
+    void scrollAll(int fetchSize, ResultHandler<T> handler);
+
     /**
      * Gets all records without duplicates.
      * <p>Note that if you use this method, it is imperative that your model
@@ -56,6 +98,20 @@ public interface GenericDao <T, PK extends Serializable> {
      */
     T save(T object);
 
+    /**
+     * Generic method to save many objects at once - handles both update and insert.
+     * Updates are sent to the database in JDBC batches; new objects are inserted one
+     * at a time, as batched inserts can't return the generated keys.
+     * @param objects the objects to save
+     */
+    void saveAll(Collection<T> objects);
+
+    /**
+     * Generic method to delete many objects at once, in JDBC batches.
+     * @param ids the identifiers (primary keys) of the objects to remove
+     */
+    void removeAll(Collection<PK> ids);
+
     /**
      * Generic method to delete an object based on class and id
      * @param id the identifier (primary key) of the object to remove
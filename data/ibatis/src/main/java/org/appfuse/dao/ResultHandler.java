@@ -0,0 +1,16 @@
+package org.appfuse.dao;
+
+/**
+ * Callback used to stream the records of a query one at a time, without
+ * materializing them all in a list.
+ *
+ * @param <T> a type variable
+ */
+public interface ResultHandler<T> {
+
+    /**
+     * Called once for each record, in the order they are read.
+     * @param object the populated object
+     */
+    void handle(T object);
+}
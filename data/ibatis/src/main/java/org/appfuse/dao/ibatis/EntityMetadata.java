@@ -0,0 +1,148 @@
+package org.appfuse.dao.ibatis;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.text.MessageFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Primary key and version accessors for a persistent class, resolved once and
+ * kept for the life of the class loader so saves don't scan fields and look up
+ * methods every time. Uses the same naming rules as {@link iBatisDaoUtils}.
+ */
+final class EntityMetadata {
+    private static final Log log = LogFactory.getLog(EntityMetadata.class);
+    private static final ConcurrentMap<Class<?>, EntityMetadata> registry =
+            new ConcurrentHashMap<Class<?>, EntityMetadata>();
+
+    private final Class<?> entityClass;
+    private final String idName;
+    private final Class<?> idType;
+    private final Method idGetter;
+    private final Method idSetter;
+    private final Method versionGetter;
+    private final Method versionSetter;
+
+    private EntityMetadata(Class<?> entityClass) {
+        this.entityClass = entityClass;
+
+        String name = null;
+        Class<?> type = null;
+        boolean versioned = false;
+        for (Field fld : entityClass.getDeclaredFields()) {
+            String fieldName = fld.getName();
+            if (name == null && (fieldName.equals("id") || fieldName.indexOf("Id") > -1 || fieldName.equals("version"))) {
+                name = fieldName;
+                type = fld.getType();
+            }
+            if (fieldName.equals("version")) {
+                versioned = true;
+            }
+        }
+        this.idName = name;
+        this.idType = type;
+
+        if (name != null) {
+            String property = Character.toUpperCase(name.charAt(0)) + name.substring(1);
+            this.idGetter = findMethod("get" + property);
+            this.idSetter = findMethod("set" + property, type);
+        } else {
+            this.idGetter = null;
+            this.idSetter = null;
+        }
+
+        this.versionGetter = versioned ? findMethod("getVersion") : null;
+        this.versionSetter = versioned ? findMethod("setVersion", Integer.class) : null;
+    }
+
+    /**
+     * Returns the metadata for a class, building it on first use.
+     * @param entityClass the persistent class
+     * @return the metadata for that class
+     */
+    static EntityMetadata forClass(Class<?> entityClass) {
+        EntityMetadata metadata = registry.get(entityClass);
+        if (metadata == null) {
+            metadata = new EntityMetadata(entityClass);
+            EntityMetadata existing = registry.putIfAbsent(entityClass, metadata);
+            if (existing != null) {
+                metadata = existing;
+            }
+        }
+        return metadata;
+    }
+
+    String getIdName() {
+        return idName;
+    }
+
+    Class<?> getIdType() {
+        return idType;
+    }
+
+    /**
+     * Reads the primary key.
+     * @param o an instance of the entity class
+     * @return the primary key, or null if it isn't set or can't be read
+     */
+    Object getId(Object o) {
+        if (idGetter == null) {
+            log.error("No primary key getter found on " + ClassUtils.getShortName(entityClass));
+            return null;
+        }
+        try {
+            return idGetter.invoke(o);
+        } catch (Exception e) {
+            log.error("Could not invoke method '" + idGetter.getName() + "' on "
+                    + ClassUtils.getShortName(entityClass), e);
+        }
+        return null;
+    }
+
+    /**
+     * Sets the primary key, ignoring null values.
+     * @param o an instance of the entity class
+     * @param value the new primary key
+     */
+    void setId(Object o, Object value) {
+        if (value == null) {
+            return;
+        }
+        try {
+            idSetter.invoke(o, value);
+        } catch (Exception e) {
+            log.error(MessageFormat.format("Could not set ''{0}.{1} with value {2}",
+                    ClassUtils.getShortName(entityClass), idName, value), e);
+        }
+    }
+
+    /**
+     * Increments the "version" property, starting at 1, if the class has one.
+     * @param o an instance of the entity class
+     */
+    void incrementVersion(Object o) {
+        if (versionGetter == null || versionSetter == null) {
+            return;
+        }
+        try {
+            Integer value = (Integer) versionGetter.invoke(o);
+            versionSetter.invoke(o, value == null ? 1 : value + 1);
+        } catch (Exception e) {
+            log.error("Could not prepare '" + ClassUtils.getShortName(entityClass) + "' for insert/update", e);
+        }
+    }
+
+    private Method findMethod(String name, Class<?>... parameterTypes) {
+        try {
+            return entityClass.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            log.warn("No method '" + name + "' found on " + ClassUtils.getShortName(entityClass));
+            return null;
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package org.appfuse.dao.ibatis;
 
 import com.ibatis.sqlmap.client.SqlMapClient;
+import com.ibatis.sqlmap.client.SqlMapExecutor;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.appfuse.dao.GenericDao;
+import org.appfuse.dao.ResultHandler;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Required;
 import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.orm.ibatis.SqlMapClientCallback;
 import org.springframework.orm.ibatis.SqlMapClientTemplate;
 import org.springframework.util.ClassUtils;
 
+import java.beans.PropertyDescriptor;
 import java.io.Serializable;
+import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This class serves as the Base class for all other DAOs - namely to hold
@@ -41,6 +49,18 @@ public class GenericDaoiBatis<T, PK extends Serializable> implements GenericDao<
     protected final Log log = LogFactory.getLog(getClass());
     private Class<T> persistentClass;
     private SqlMapClientTemplate sqlMapClientTemplate = new SqlMapClientTemplate();
+    private int batchSize = 50;
+    private static final int DEFAULT_FETCH_SIZE = 100;
+
+    // statement names are derived from the class name once, not on every call
+    private final String selectQuery;
+    private final String pagedSelectQuery;
+    private final String scrollQuery;
+    private final String countQuery;
+    private final String findQuery;
+    private final String insertQuery;
+    private final String updateQuery;
+    private final String deleteQuery;
 
     /**
      * Constructor that takes in a class to see which type of entity to persist.
@@ -50,6 +70,15 @@ public class GenericDaoiBatis<T, PK extends Serializable> implements GenericDao<
      */
     public GenericDaoiBatis(final Class<T> persistentClass) {
         this.persistentClass = persistentClass;
+        String className = ClassUtils.getShortName(persistentClass);
+        this.selectQuery = iBatisDaoUtils.getSelectQuery(className);
+        this.pagedSelectQuery = iBatisDaoUtils.getPagedSelectQuery(className);
+        this.scrollQuery = iBatisDaoUtils.getScrollQuery(className);
+        this.countQuery = iBatisDaoUtils.getCountQuery(className);
+        this.findQuery = iBatisDaoUtils.getFindQuery(className);
+        this.insertQuery = iBatisDaoUtils.getInsertQuery(className);
+        this.updateQuery = iBatisDaoUtils.getUpdateQuery(className);
+        this.deleteQuery = iBatisDaoUtils.getDeleteQuery(className);
     }
 
     /**
@@ -60,7 +89,7 @@ public class GenericDaoiBatis<T, PK extends Serializable> implements GenericDao<
      * @param sqlMapClient    the configured SqlMapClient
      */
     public GenericDaoiBatis(final Class<T> persistentClass, SqlMapClient sqlMapClient) {
-        this.persistentClass = persistentClass;
+        this(persistentClass);
         this.sqlMapClientTemplate.setSqlMapClient(sqlMapClient);
     }
 
@@ -89,14 +118,99 @@ public class GenericDaoiBatis<T, PK extends Serializable> implements GenericDao<
     public Class<T> getPersistentClass() {
         return persistentClass;
     }
+
+    /**
+     * Number of statements sent in each JDBC batch by saveAll and removeAll (default 50).
+     *
+     * @param batchSize the number of statements per batch
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
     
     /**
      * {@inheritDoc}
      */
     @SuppressWarnings("unchecked")
     public List<T> getAll() {
-        return getSqlMapClientTemplate().queryForList(
-                iBatisDaoUtils.getSelectQuery(ClassUtils.getShortName(this.persistentClass)), null);
+        return getSqlMapClientTemplate().queryForList(selectQuery, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Runs the "get" + className + "sPaged" statement, which receives "firstResult", "maxResults",
+     * "sortProperty" and "sortDirection" and is expected to limit and order the rows in SQL. The statement
+     * lists the columns it can sort by; other properties of the class are sorted by primary key.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getAll(int firstResult, int maxResults, String sortProperty, boolean ascending) {
+        if (sortProperty != null) {
+            PropertyDescriptor descriptor = BeanUtils.getPropertyDescriptor(persistentClass, sortProperty);
+            if (descriptor == null) {
+                throw new IllegalArgumentException("Unknown property '" + sortProperty + "' of "
+                        + persistentClass.getName());
+            }
+            Class<?> type = descriptor.getPropertyType();
+            if (type != null && (type.isArray() || Collection.class.isAssignableFrom(type)
+                    || Map.class.isAssignableFrom(type))) {
+                throw new IllegalArgumentException("Can't sort by collection '" + sortProperty + "' of "
+                        + persistentClass.getName());
+            }
+        }
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("firstResult", firstResult);
+        params.put("maxResults", maxResults);
+        params.put("sortProperty", sortProperty);
+        params.put("sortDirection", ascending ? "asc" : "desc");
+        return getSqlMapClientTemplate().queryForList(pagedSelectQuery, params);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getCount() {
+        Number count = (Number) getSqlMapClientTemplate().queryForObject(countQuery, null);
+        return count.longValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Runs the "scroll" + className + "s" statement. It receives "maxResults" and "afterId",
+     * which is null for the first page, and is expected to return the next records in id order.
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getAllAfter(PK lastId, int maxResults) {
+        Map<String, Object> params = new HashMap<String, Object>();
+        params.put("afterId", lastId);
+        params.put("maxResults", maxResults);
+        return getSqlMapClientTemplate().queryForList(scrollQuery, params);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Reads fetchSize records at a time with {@link #getAllAfter}. Records are handed out
+     * once a page is read, so results grouped from joined rows (such as a user's roles) are
+     * complete, and no more than one page is held at a time. A fetchSize of 0 or less reads
+     * 100 records at a time.
+     */
+    @SuppressWarnings("unchecked")
+    public void scrollAll(int fetchSize, ResultHandler<T> handler) {
+        int pageSize = fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE;
+        EntityMetadata metadata = EntityMetadata.forClass(persistentClass);
+        PK lastId = null;
+        List<T> page;
+        do {
+            page = getAllAfter(lastId, pageSize);
+            for (T object : page) {
+                handler.handle(object);
+            }
+            if (!page.isEmpty()) {
+                lastId = (PK) metadata.getId(page.get(page.size() - 1));
+            }
+        } while (page.size() == pageSize);
     }
 
     /**
@@ -113,8 +227,7 @@ public class GenericDaoiBatis<T, PK extends Serializable> implements GenericDao<
      */
     @SuppressWarnings("unchecked")
     public T get(PK id) {
-        T object = (T) getSqlMapClientTemplate().queryForObject(
-                iBatisDaoUtils.getFindQuery(ClassUtils.getShortName(this.persistentClass)), id);
+        T object = (T) getSqlMapClientTemplate().queryForObject(findQuery, id);
         if (object == null) {
             log.warn("Uh oh, '" + this.persistentClass + "' object with id '" + id + "' not found...");
             throw new ObjectRetrievalFailureException(ClassUtils.getShortName(this.persistentClass), id);
@@ -127,8 +240,7 @@ public class GenericDaoiBatis<T, PK extends Serializable> implements GenericDao<
      */
     @SuppressWarnings("unchecked")
     public boolean exists(PK id) {
-        T object = (T) getSqlMapClientTemplate().queryForObject(
-                iBatisDaoUtils.getFindQuery(ClassUtils.getShortName(this.persistentClass)), id);
+        T object = (T) getSqlMapClientTemplate().queryForObject(findQuery, id);
         return object != null;
     }
 
@@ -137,9 +249,10 @@ public class GenericDaoiBatis<T, PK extends Serializable> implements GenericDao<
      */
     @SuppressWarnings("unchecked")
     public T save(final T object) {
-        String className = ClassUtils.getShortName(object.getClass());
-        Object primaryKey = iBatisDaoUtils.getPrimaryKeyValue(object);
-        Class primaryKeyClass = iBatisDaoUtils.getPrimaryKeyFieldType(object);
+        // subclasses map to their own statements, so only the persistent class uses the cached names
+        boolean persistentType = object.getClass() == persistentClass;
+        EntityMetadata metadata = EntityMetadata.forClass(object.getClass());
+        Object primaryKey = metadata.getId(object);
         String keyId = null;
 
         // check for null id
@@ -149,27 +262,82 @@ public class GenericDaoiBatis<T, PK extends Serializable> implements GenericDao<
 
         // check for new record
         if (StringUtils.isBlank(keyId)) {
-            iBatisDaoUtils.prepareObjectForSaveOrUpdate(object);
-            primaryKey = getSqlMapClientTemplate().insert(iBatisDaoUtils.getInsertQuery(className), object);
-            iBatisDaoUtils.setPrimaryKey(object, primaryKeyClass, primaryKey);
+            metadata.incrementVersion(object);
+            primaryKey = getSqlMapClientTemplate().insert(persistentType ? insertQuery
+                    : iBatisDaoUtils.getInsertQuery(ClassUtils.getShortName(object.getClass())), object);
+            metadata.setId(object, primaryKey);
         } else {
-            iBatisDaoUtils.prepareObjectForSaveOrUpdate(object);
-            getSqlMapClientTemplate().update(iBatisDaoUtils.getUpdateQuery(className), object);
+            metadata.incrementVersion(object);
+            getSqlMapClientTemplate().update(persistentType ? updateQuery
+                    : iBatisDaoUtils.getUpdateQuery(ClassUtils.getShortName(object.getClass())), object);
         }
 
         // check for null id
-        if (iBatisDaoUtils.getPrimaryKeyValue(object) == null) {
-            throw new ObjectRetrievalFailureException(className, object);
+        if (metadata.getId(object) == null) {
+            throw new ObjectRetrievalFailureException(ClassUtils.getShortName(object.getClass()), object);
         } else {
             return object;
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void saveAll(final Collection<T> objects) {
+        final List<T> newObjects = new ArrayList<T>();
+        getSqlMapClientTemplate().execute(new SqlMapClientCallback<Object>() {
+            public Object doInSqlMapClient(SqlMapExecutor executor) throws SQLException {
+                executor.startBatch();
+                int count = 0;
+                for (T object : objects) {
+                    Object primaryKey = iBatisDaoUtils.getPrimaryKeyValue(object);
+                    if (primaryKey == null || StringUtils.isBlank(primaryKey.toString())) {
+                        newObjects.add(object);
+                        continue;
+                    }
+                    iBatisDaoUtils.prepareObjectForSaveOrUpdate(object);
+                    executor.update(updateQuery, object);
+                    if (++count % batchSize == 0) {
+                        executor.executeBatch();
+                        executor.startBatch();
+                    }
+                }
+                executor.executeBatch();
+                return null;
+            }
+        });
+
+        // batched inserts don't return the generated keys, so new objects are inserted one by one
+        for (T object : newObjects) {
+            save(object);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void removeAll(final Collection<PK> ids) {
+        getSqlMapClientTemplate().execute(new SqlMapClientCallback<Object>() {
+            public Object doInSqlMapClient(SqlMapExecutor executor) throws SQLException {
+                executor.startBatch();
+                int count = 0;
+                for (PK id : ids) {
+                    executor.delete(deleteQuery, id);
+                    if (++count % batchSize == 0) {
+                        executor.executeBatch();
+                        executor.startBatch();
+                    }
+                }
+                executor.executeBatch();
+                return null;
+            }
+        });
+    }
+
     /**
      * {@inheritDoc}
      */
     public void remove(PK id) {
-        getSqlMapClientTemplate().update(
-                iBatisDaoUtils.getDeleteQuery(ClassUtils.getShortName(this.persistentClass)), id);
+        getSqlMapClientTemplate().update(deleteQuery, id);
     }
 }
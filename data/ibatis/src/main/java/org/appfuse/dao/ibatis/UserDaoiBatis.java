@@ -1,16 +1,18 @@
 package org.appfuse.dao.ibatis;
 
+import com.ibatis.sqlmap.client.SqlMapExecutor;
 import org.appfuse.dao.UserDao;
 import org.appfuse.model.Role;
 import org.appfuse.model.User;
 import org.springframework.orm.ObjectRetrievalFailureException;
+import org.springframework.orm.ibatis.SqlMapClientCallback;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Repository;
 
+import java.sql.SQLException;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 
@@ -31,7 +33,7 @@ public class UserDaoiBatis extends GenericDaoiBatis<User, Long>implements UserDa
     }
 
     /**
-     * Get user by id.
+     * Get user by id. Roles are loaded in the same query.
      *
      * @param userId the user's id
      * @return a populated user object
@@ -44,9 +46,6 @@ public class UserDaoiBatis extends GenericDaoiBatis<User, Long>implements UserDa
         if (user == null) {
             log.warn("uh oh, user not found...");
             throw new ObjectRetrievalFailureException(User.class, userId);
-        } else {
-            List roles = getSqlMapClientTemplate().queryForList("getUserRoles", user);
-            user.setRoles(new HashSet<Role>(roles));
         }
 
         return user;
@@ -57,18 +56,8 @@ public class UserDaoiBatis extends GenericDaoiBatis<User, Long>implements UserDa
      */
     @SuppressWarnings("unchecked")
     public List<User> getUsers() {
-        List users = getSqlMapClientTemplate().queryForList("getUsers", null);
-
-        // get the roles for each user
-        for (int i = 0; i < users.size(); i++) {
-            User user = (User) users.get(i);
-
-            List roles =  getSqlMapClientTemplate().queryForList("getUserRoles", user);
-            user.setRoles(new HashSet<Role>(roles));
-            users.set(i, user);
-        }
-
-        return users;
+        // roles are joined in and grouped by user id, so this is a single query
+        return getSqlMapClientTemplate().queryForList("getUsers", null);
     }
 
     /**
@@ -79,19 +68,29 @@ public class UserDaoiBatis extends GenericDaoiBatis<User, Long>implements UserDa
         getSqlMapClientTemplate().update("deleteUserRoles", userId);
     }
 
+    /**
+     * Convenience method to add roles. Existing roles have already been deleted,
+     * so every role is inserted in one JDBC batch.
+     * @param user the user whose roles should be added
+     */
     private void addUserRoles(final User user) {
-        if (user.getRoles() != null) {
-            for (Role role : user.getRoles()) {
-                Map<String, Long> newRole = new HashMap<String, Long>();
-                newRole.put("userId", user.getId());
-                newRole.put("roleId", role.getId());
-
-                List userRoles = getSqlMapClientTemplate().queryForList("getUserRoles", user);
-                if (userRoles.isEmpty()) {
-                    getSqlMapClientTemplate().update("addUserRole", newRole);
+        if (user.getRoles() == null || user.getRoles().isEmpty()) {
+            return;
+        }
+
+        getSqlMapClientTemplate().execute(new SqlMapClientCallback<Object>() {
+            public Object doInSqlMapClient(SqlMapExecutor executor) throws SQLException {
+                executor.startBatch();
+                for (Role role : user.getRoles()) {
+                    Map<String, Long> newRole = new HashMap<String, Long>();
+                    newRole.put("userId", user.getId());
+                    newRole.put("roleId", role.getId());
+                    executor.update("addUserRole", newRole);
                 }
+                executor.executeBatch();
+                return null;
             }
-        }
+        });
     }
 
     /**
@@ -132,9 +131,6 @@ public class UserDaoiBatis extends GenericDaoiBatis<User, Long>implements UserDa
          if (user == null) {
              log.warn("uh oh, user not found...");
              throw new UsernameNotFoundException("user '" + username + "' not found...");
-         } else {
-             List roles = getSqlMapClientTemplate().queryForList("getUserRoles", user);
-             user.setRoles(new HashSet<Role>(roles));
          }
 
          return user;
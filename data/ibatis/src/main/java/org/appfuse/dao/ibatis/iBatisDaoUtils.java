@@ -2,11 +2,6 @@ package org.appfuse.dao.ibatis;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
-import org.springframework.util.ClassUtils;
-
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.text.MessageFormat;
 
 /**
  * General iBATIS Utilities class with rules for primary keys and
@@ -32,15 +27,7 @@ public final class iBatisDaoUtils {
      * @return the fieldName
      */
     protected static String getPrimaryKeyFieldName(Object o) {
-        Field[] fieldlist = o.getClass().getDeclaredFields();
-        String fieldName = null;
-        for (Field fld : fieldlist) {
-            if (fld.getName().equals("id") || fld.getName().indexOf("Id") > -1 || fld.getName().equals("version")) {
-                fieldName = fld.getName();
-                break;
-            }
-        }
-        return fieldName;
+        return EntityMetadata.forClass(o.getClass()).getIdName();
     }
 
     /**
@@ -49,35 +36,16 @@ public final class iBatisDaoUtils {
      * @return the class type
      */
     protected static Class getPrimaryKeyFieldType(Object o) {
-        Field[] fieldlist = o.getClass().getDeclaredFields();
-        Class fieldType = null;
-        for (Field fld : fieldlist) {
-            if (fld.getName().equals("id") || fld.getName().indexOf("Id") > -1 || fld.getName().equals("version")) {
-                fieldType = fld.getType();
-                break;
-            }
-        }
-        return fieldType;
+        return EntityMetadata.forClass(o.getClass()).getIdType();
     }
 
     /**
-     * Get the value of the primary key using reflection.
+     * Get the value of the primary key. The getter is resolved once per class.
      * @param o the object to examine
      * @return the value as an Object
      */
     protected static Object getPrimaryKeyValue(Object o) {
-        // Use reflection to find the first property that has the name "id" or "Id"
-        String fieldName = getPrimaryKeyFieldName(o);
-        String getterMethod = "get" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1); 
-
-        try {
-            Method getMethod = o.getClass().getMethod(getterMethod, (Class[]) null);
-            return getMethod.invoke(o, (Object[]) null);
-        } catch (Exception e) {
-            e.printStackTrace();
-            log.error("Could not invoke method '" + getterMethod + "' on " + ClassUtils.getShortName(o.getClass()));
-        }
-        return null;
+        return EntityMetadata.forClass(o.getClass()).getId(o);
     }
 
     /**
@@ -86,24 +54,7 @@ public final class iBatisDaoUtils {
      * @param o the object to examine
      */
     protected static void prepareObjectForSaveOrUpdate(Object o) {
-        try {
-            Field[] fieldlist = o.getClass().getDeclaredFields();
-            for (Field fld : fieldlist) {
-                String fieldName = fld.getName();
-                if (fieldName.equals("version")) {
-                    Method setMethod = o.getClass().getMethod("setVersion", Integer.class);
-                    Object value = o.getClass().getMethod("getVersion", (Class[]) null).invoke(o, (Object[]) null);
-                    if (value == null) {
-                        setMethod.invoke(o, 1);
-                    } else {
-                        setMethod.invoke(o, (Integer) value + 1);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            log.error("Could not prepare '" + ClassUtils.getShortName(o.getClass()) + "' for insert/update");
-        }
+        EntityMetadata.forClass(o.getClass()).incrementVersion(o);
     }
 
     /**
@@ -113,19 +64,7 @@ public final class iBatisDaoUtils {
      * @param value the value of the new primary key
      */
     protected static void setPrimaryKey(Object o, Class clazz, Object value) {
-        String fieldName = getPrimaryKeyFieldName(o);
-        String setMethodName = "set" + Character.toUpperCase(fieldName.charAt(0)) + fieldName.substring(1);
-
-        try {
-            Method setMethod = o.getClass().getMethod(setMethodName, clazz);
-            if (value != null) {
-                setMethod.invoke(o, value);
-            }
-        } catch (Exception e) {
-            e.printStackTrace();
-            log.error(MessageFormat.format("Could not set ''{0}.{1} with value {2}",
-                    ClassUtils.getShortName(o.getClass()), fieldName, value));
-        }
+        EntityMetadata.forClass(o.getClass()).setId(o, value);
     }
 
     /**
@@ -136,6 +75,30 @@ public final class iBatisDaoUtils {
         return "get" + className + "s";
     }
 
+    /**
+     * @return Returns the paged select query name.
+     * @param className the name of the class - returns "get" + className + "sPaged"
+     */
+    public static String getPagedSelectQuery(String className) {
+        return "get" + className + "sPaged";
+    }
+
+    /**
+     * @return Returns the scroll query name.
+     * @param className the name of the class - returns "scroll" + className + "s"
+     */
+    public static String getScrollQuery(String className) {
+        return "scroll" + className + "s";
+    }
+
+    /**
+     * @return Returns the count query name.
+     * @param className the name of the class - returns "count" + className + "s"
+     */
+    public static String getCountQuery(String className) {
+        return "count" + className + "s";
+    }
+
     /**
      * @return Returns the find query name.
      * @param className the name of the class - returns "get" + className
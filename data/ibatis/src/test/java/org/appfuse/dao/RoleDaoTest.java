@@ -5,6 +5,9 @@ import org.appfuse.model.Role;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class RoleDaoTest extends BaseDaoTestCase {
@@ -23,6 +26,19 @@ public class RoleDaoTest extends BaseDaoTestCase {
         assertNotNull(role);
     }
 
+    @Test
+    public void testScrollAll() throws Exception {
+        final List<String> names = new ArrayList<String>();
+        dao.scrollAll(1, new ResultHandler<Role>() {
+            public void handle(Role role) {
+                names.add(role.getName());
+            }
+        });
+        assertEquals(2, names.size());
+        assertTrue(names.contains(Constants.ADMIN_ROLE));
+        assertTrue(names.contains(Constants.USER_ROLE));
+    }
+
     @Test
     public void testUpdateRole() throws Exception {
         Role role = dao.getRoleByName("ROLE_USER");
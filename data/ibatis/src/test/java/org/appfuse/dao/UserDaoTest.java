@@ -15,6 +15,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
 
+import java.util.List;
+
 import static org.junit.Assert.*;
 
 public class UserDaoTest extends BaseDaoTestCase {
@@ -41,6 +43,20 @@ public class UserDaoTest extends BaseDaoTestCase {
         assertTrue(user.isEnabled());
     }
 
+    @Test
+    public void testGetUsersWithRoles() throws Exception {
+        List<User> users = dao.getUsers();
+
+        assertEquals(3, users.size());
+        for (User user : users) {
+            if ("two_roles_user".equals(user.getUsername())) {
+                assertEquals(2, user.getRoles().size());
+            } else {
+                assertEquals(1, user.getRoles().size());
+            }
+        }
+    }
+
     @Test
     public void testGetUserPassword() throws Exception {
         User user = dao.get(-1L);
@@ -1,7 +1,9 @@
 package org.appfuse.dao;
 
 import java.io.Serializable;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -24,6 +26,47 @@ public interface GenericDao <T, PK extends Serializable> {
      */
     List<T> getAll();
 
+    /**
+     * Gets one page of records, sorted and limited by the database so that only
+     * the requested rows are loaded, no matter how big the table is.
+     * Values are compared as the database compares the column, so whether "Bob" sorts
+     * before "alice" depends on the column's collation.
+     * @param firstResult the index of the first record to return (zero-based)
+     * @param maxResults the maximum number of records to return
+     * @param sortProperty the property to sort by, or null to sort by primary key
+     * @param ascending true to sort ascending, false to sort descending
+     * @return List of populated objects in the requested page
+     * @throws IllegalArgumentException if sortProperty is not a single-valued persistent property
+     */
+    List<T> getAll(int firstResult, int maxResults, String sortProperty, boolean ascending);
+
+    /**
+     * Counts all records of a particular type, to go along with the paged getAll.
+     * @return the total number of records
+     */
+    long getCount();
+
+    /**
+     * Gets the records that follow lastId in primary key order, for walking through a whole
+     * table a page at a time. Each page seeks to the last id seen rather than skipping rows,
+     * so later pages cost no more than the first and rows added or removed in between
+     * don't shift records into a page twice or out of it.
+     * @param lastId the primary key of the last record of the previous page, or null for the first page
+     * @param maxResults the maximum number of records to return
+     * @return List of populated objects with a primary key greater than lastId, in primary key order
+     */
+    List<T> getAllAfter(PK lastId, int maxResults);
+
+    /**
+     * Streams all records of a particular type to a handler, reading them from the
+     * database in batches of fetchSize so that memory use stays flat no matter how
+     * many rows there are. Objects handed to the handler are detached once their batch
+     * has been processed, after any changes to them have been flushed.
+     * @param fetchSize the number of rows to read (and keep in memory) at a time
+     * @param handler the callback invoked for each record
+     */
+    void scrollAll(int fetchSize, ResultHandler<T> handler);
+
     /**
      * Gets all records without duplicates.
      * <p>Note that if you use this method, it is imperative that your model
@@ -40,6 +83,31 @@ public interface GenericDao <T, PK extends Serializable> {
      */
     List<T> search(String searchTerm) throws SearchException;
 
+    /**
+     * Gets one page of the records that match a search term, sorted by the index.
+     * Only the records in the page are loaded from the database.
+     * @param searchTerm the term to search for, "*" will match them all
+     * @param firstResult the index of the first record to return (zero-based)
+     * @param maxResults the maximum number of records to return
+     * @param sortProperty the property to sort by, or null to sort by relevance; a property
+     *                     without an indexed field is also sorted by relevance
+     * @param ascending true to sort ascending, false to sort descending
+     * @return the matching records in the requested page
+     * @throws SearchException
+     * @throws IllegalArgumentException if sortProperty is not a single-valued persistent property,
+     *                                  as with the paged getAll
+     */
+    List<T> search(String searchTerm, int firstResult, int maxResults, String sortProperty, boolean ascending)
+            throws SearchException;
+
+    /**
+     * Counts the records that match a search term using the index only, without loading them.
+     * @param searchTerm the term to search for, "*" will match them all
+     * @return the number of matching records
+     * @throws SearchException
+     */
+    long searchCount(String searchTerm) throws SearchException;
+
     /**
      * Generic method to get an object based on class and identifier. An
      * ObjectRetrievalFailureException Runtime Exception is thrown if
@@ -65,6 +133,27 @@ public interface GenericDao <T, PK extends Serializable> {
      */
     T save(T object);
 
+    /**
+     * Generic method to save many objects at once - handles both update and insert.
+     * Statements are sent to the database in JDBC batches. As with {@link #save}, existing
+     * objects are merged, so a detached object may be passed in even when an object with
+     * the same identifier is already loaded; new objects are persisted and get their
+     * identifier set.
+     * <p/>
+     * The persistence context is flushed and cleared between batches so memory use stays
+     * bounded. Clearing detaches every entity of the current transaction, including ones
+     * loaded before the call; their changes are flushed first, but they must be reloaded
+     * to be changed again.
+     * @param objects the objects to save
+     */
+    void saveAll(Collection<T> objects);
+
+    /**
+     * Generic method to delete many objects at once, in JDBC batches.
+     * @param ids the identifiers (primary keys) of the objects to remove
+     */
+    void removeAll(Collection<PK> ids);
+
     /**
      * Generic method to delete an object
      * @param object the object to remove
@@ -77,6 +166,14 @@ public interface GenericDao <T, PK extends Serializable> {
      */
     void remove(PK id);
 
+    /**
+     * Find a list of records by using a named query
+     * @param queryName query name of the named query
+     * @param queryParams a map of the query names and the values
+     * @return a list of the records found
+     */
+    List<T> findByNamedQuery(String queryName, Map<String, Object> queryParams);
+
     /**
      * Generic method to regenerate full text index of the persistent class T
      */
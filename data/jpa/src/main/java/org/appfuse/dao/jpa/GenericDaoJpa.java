@@ -3,20 +3,32 @@ package org.appfuse.dao.jpa;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.appfuse.dao.GenericDao;
+import org.appfuse.dao.ResultHandler;
 import org.appfuse.dao.SearchException;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityNotFoundException;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.metamodel.Attribute;
+import javax.persistence.metamodel.EntityType;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import org.apache.lucene.analysis.Analyzer;
 import org.apache.lucene.analysis.standard.StandardAnalyzer;
 import org.apache.lucene.queryParser.ParseException;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.util.Version;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
 import org.hibernate.search.jpa.FullTextEntityManager;
 import org.hibernate.search.jpa.Search;
 
@@ -54,6 +66,7 @@ public class GenericDaoJpa<T, PK extends Serializable> implements GenericDao<T,
     private EntityManager entityManager;
     private Class<T> persistentClass;
     private Analyzer defaultAnalyzer;
+    private int batchSize = 50;
 
     /**
      * Constructor that takes in a class to see which type of entity to persist.
@@ -81,6 +94,15 @@ public class GenericDaoJpa<T, PK extends Serializable> implements GenericDao<T,
         return this.entityManager;
     }
 
+    /**
+     * Number of objects saved or removed between two flushes by saveAll and removeAll (default 50).
+     * Keep it in line with hibernate.jdbc.batch_size so every flush sends full JDBC batches.
+     * @param batchSize the number of objects per batch
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -91,6 +113,105 @@ public class GenericDaoJpa<T, PK extends Serializable> implements GenericDao<T,
                 .getResultList();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getAll(int firstResult, int maxResults, String sortProperty, boolean ascending) {
+        EntityType<T> entityType = this.entityManager.getMetamodel().entity(this.persistentClass);
+        String idProperty = entityType.getId(entityType.getIdType().getJavaType()).getName();
+        String direction = ascending ? " asc" : " desc";
+
+        StringBuilder jpql = new StringBuilder("select obj from ")
+                .append(this.persistentClass.getName()).append(" obj order by ");
+        if (sortProperty != null) {
+            checkSortProperty(entityType, sortProperty);
+            jpql.append("obj.").append(sortProperty).append(direction);
+            if (!idProperty.equals(sortProperty)) {
+                jpql.append(", obj.").append(idProperty).append(direction);
+            }
+        } else {
+            jpql.append("obj.").append(idProperty).append(direction);
+        }
+
+        return this.entityManager.createQuery(jpql.toString())
+                .setFirstResult(firstResult)
+                .setMaxResults(maxResults)
+                .getResultList();
+    }
+
+    /**
+     * Checks that records can be ordered by an attribute: it must exist and hold a single value.
+     * Nothing else can reach the query, as the attribute name is appended to it.
+     */
+    private void checkSortProperty(EntityType<T> entityType, String sortProperty) {
+        // throws IllegalArgumentException for unknown attributes
+        Attribute<? super T, ?> attribute = entityType.getAttribute(sortProperty);
+        if (attribute.isCollection()) {
+            throw new IllegalArgumentException("Can't sort by collection '" + sortProperty + "' of "
+                    + this.persistentClass.getName());
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getCount() {
+        Number count = (Number) this.entityManager.createQuery(
+                "select count(obj) from " + this.persistentClass.getName() + " obj")
+                .getSingleResult();
+        return count.longValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> getAllAfter(PK lastId, int maxResults) {
+        EntityType<T> entityType = this.entityManager.getMetamodel().entity(this.persistentClass);
+        String idProperty = entityType.getId(entityType.getIdType().getJavaType()).getName();
+
+        StringBuilder jpql = new StringBuilder("select obj from ")
+                .append(this.persistentClass.getName()).append(" obj");
+        if (lastId != null) {
+            jpql.append(" where obj.").append(idProperty).append(" > :lastId");
+        }
+        jpql.append(" order by obj.").append(idProperty);
+
+        Query query = this.entityManager.createQuery(jpql.toString()).setMaxResults(maxResults);
+        if (lastId != null) {
+            query.setParameter("lastId", lastId);
+        }
+        return query.getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * JPA 2.0 has no cursor API, so this scrolls through the underlying Hibernate session.
+     */
+    @SuppressWarnings("unchecked")
+    public void scrollAll(int fetchSize, ResultHandler<T> handler) {
+        Session session = this.entityManager.unwrap(Session.class);
+        ScrollableResults results = session.createCriteria(this.persistentClass)
+                .setFetchSize(fetchSize)
+                .setCacheMode(CacheMode.IGNORE)
+                .scroll(ScrollMode.FORWARD_ONLY);
+        try {
+            int count = 0;
+            while (results.next()) {
+                handler.handle((T) results.get(0));
+                if (++count % fetchSize == 0) {
+                    // keep only one batch of entities in the persistence context
+                    this.entityManager.flush();
+                    this.entityManager.clear();
+                }
+            }
+        } finally {
+            results.close();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -130,6 +251,42 @@ public class GenericDaoJpa<T, PK extends Serializable> implements GenericDao<T,
         return this.entityManager.merge(object);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void saveAll(Collection<T> objects) {
+        PersistenceUnitUtil persistenceUnitUtil = this.entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+        int count = 0;
+        for (T object : objects) {
+            // persist rather than merge new objects, so their identifier is set and no copy is made
+            if (persistenceUnitUtil.getIdentifier(object) == null) {
+                this.entityManager.persist(object);
+            } else {
+                this.entityManager.merge(object);
+            }
+            if (++count % batchSize == 0) {
+                this.entityManager.flush();
+                this.entityManager.clear();
+            }
+        }
+        this.entityManager.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void removeAll(Collection<PK> ids) {
+        int count = 0;
+        for (PK id : ids) {
+            this.entityManager.remove(this.entityManager.getReference(this.persistentClass, id));
+            if (++count % batchSize == 0) {
+                this.entityManager.flush();
+                this.entityManager.clear();
+            }
+        }
+        this.entityManager.flush();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -144,7 +301,48 @@ public class GenericDaoJpa<T, PK extends Serializable> implements GenericDao<T,
         this.entityManager.remove(this.get(id));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public List<T> findByNamedQuery(String queryName, Map<String, Object> queryParams) {
+        TypedQuery<T> namedQuery = this.entityManager.createNamedQuery(queryName, this.persistentClass);
+        for (Map.Entry<String, Object> param : queryParams.entrySet()) {
+            namedQuery.setParameter(param.getKey(), param.getValue());
+        }
+        return namedQuery.getResultList();
+    }
+
     public List<T> search(String searchTerm) throws SearchException {
+        return createFullTextQuery(searchTerm).getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @SuppressWarnings("unchecked")
+    public List<T> search(String searchTerm, int firstResult, int maxResults, String sortProperty, boolean ascending)
+            throws SearchException {
+        if (sortProperty != null) {
+            checkSortProperty(this.entityManager.getMetamodel().entity(this.persistentClass), sortProperty);
+        }
+        org.hibernate.search.jpa.FullTextQuery hibQuery = createFullTextQuery(searchTerm);
+        Sort sort = HibernateSearchJpaTools.generateSort(sortProperty, ascending, this.persistentClass, entityManager);
+        if (sort != null) {
+            hibQuery.setSort(sort);
+        }
+        hibQuery.setFirstResult(firstResult);
+        hibQuery.setMaxResults(maxResults);
+        return hibQuery.getResultList();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long searchCount(String searchTerm) throws SearchException {
+        return createFullTextQuery(searchTerm).getResultSize();
+    }
+
+    private org.hibernate.search.jpa.FullTextQuery createFullTextQuery(String searchTerm) throws SearchException {
         FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
         org.apache.lucene.search.Query qry;
         try {
@@ -155,7 +353,7 @@ public class GenericDaoJpa<T, PK extends Serializable> implements GenericDao<T,
         org.hibernate.search.jpa.FullTextQuery hibQuery = fullTextEntityManager.createFullTextQuery(qry, this.persistentClass);
         // filter search results by owner.id value:
         // hibQuery.enableFullTextFilter("owned").setParameter("ownerId", owner.getId().toString());
-        return hibQuery.getResultList();
+        return hibQuery;
     }
 
     /**
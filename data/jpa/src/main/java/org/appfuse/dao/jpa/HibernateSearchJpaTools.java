@@ -1,22 +1,15 @@
 package org.appfuse.dao.jpa;
 
-import java.util.Collection;
-import java.util.HashSet;
 import javax.persistence.EntityManager;
+
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.lucene.analysis.Analyzer;
-import org.apache.lucene.index.FieldInfo;
-import org.apache.lucene.index.IndexReader;
-import org.apache.lucene.queryParser.MultiFieldQueryParser;
 import org.apache.lucene.queryParser.ParseException;
-import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
-import org.apache.lucene.util.ReaderUtil;
-import org.apache.lucene.util.Version;
+import org.apache.lucene.search.Sort;
+import org.appfuse.dao.HibernateSearchQueries;
 import org.hibernate.search.MassIndexer;
-import org.hibernate.search.SearchFactory;
-import org.hibernate.search.indexes.IndexReaderAccessor;
 import org.hibernate.search.jpa.FullTextEntityManager;
 import org.hibernate.search.jpa.Search;
 
@@ -24,9 +17,11 @@ import org.hibernate.search.jpa.Search;
  * Utility class to generate lucene queries for hibernate search and perform full reindexing.
  *
  * @author jgarcia
+ * @see HibernateSearchQueries
  */
 public class HibernateSearchJpaTools {
     protected static final Log log = LogFactory.getLog(HibernateSearchJpaTools.class);
+
     /**
      * Generates a lucene query to search for a given term in all the indexed fields of a class
      *
@@ -38,57 +33,25 @@ public class HibernateSearchJpaTools {
      * @throws ParseException
      */
     public static Query generateQuery(String searchTerm, Class searchedEntity, EntityManager entityManager, Analyzer defaultAnalyzer) throws ParseException {
-        Query qry = null;
-
-        if (searchTerm.equals("*")) {
-            qry = new MatchAllDocsQuery();
-        } else {
-            // Search in all indexed fields
-
-            IndexReaderAccessor readerAccessor = null;
-            IndexReader reader = null;
-            try {
-                FullTextEntityManager fullTextEntityManager = org.hibernate.search.jpa.Search.getFullTextEntityManager(entityManager);
-
-                // obtain analyzer to parse the query:
-                Analyzer analyzer;
-                if (searchedEntity == null) {
-                    analyzer = defaultAnalyzer;
-                } else {
-                    analyzer = fullTextEntityManager.getSearchFactory().getAnalyzer(searchedEntity);
-                }
-
-                // search on all indexed fields: generate field list, removing internal hibernate search field name: _hibernate_class
-                // TODO: possible improvement: cache the fields of each entity
-                SearchFactory searchFactory = fullTextEntityManager.getSearchFactory();
-                readerAccessor = searchFactory.getIndexReaderAccessor();
-                reader = readerAccessor.open(searchedEntity);
-                Collection<String> fieldNames = new HashSet<>();
-                for (FieldInfo fieldInfo : ReaderUtil.getMergedFieldInfos(reader)) {
-                    if (fieldInfo.isIndexed) {
-                        fieldNames.add(fieldInfo.name);
-                    }
-                }
-                fieldNames.remove("_hibernate_class");
-                String[] fnames = new String[0];
-                fnames = fieldNames.toArray(fnames);
-
-                // To search on all fields, search the term in all fields
-                String[] queries = new String[fnames.length];
-                for (int i = 0; i < queries.length; ++i) {
-                    queries[i] = searchTerm;
-                }
-
-                qry = MultiFieldQueryParser.parse(Version.LUCENE_36, queries, fnames, analyzer);
-            } finally {
-                if (readerAccessor != null && reader != null) {
-                    readerAccessor.close(reader);
-                }
-            }
-        }
-        return qry;
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+        return HibernateSearchQueries.generateQuery(searchTerm, searchedEntity,
+                fullTextEntityManager.getSearchFactory(), defaultAnalyzer);
     }
 
+    /**
+     * Generates a lucene sort on a property of a class, using its untokenized "_sort" field when it is indexed
+     *
+     * @param sortProperty the property to sort by, null for relevance order
+     * @param ascending true to sort ascending, false to sort descending
+     * @param searchedEntity the class searched
+     * @param entityManager the entity manager
+     * @return the sort, or null to keep relevance order
+     */
+    public static Sort generateSort(String sortProperty, boolean ascending, Class searchedEntity, EntityManager entityManager) {
+        FullTextEntityManager fullTextEntityManager = Search.getFullTextEntityManager(entityManager);
+        return HibernateSearchQueries.generateSort(sortProperty, ascending, searchedEntity,
+                fullTextEntityManager.getSearchFactory());
+    }
 
     /**
      * Regenerates the index for a given class
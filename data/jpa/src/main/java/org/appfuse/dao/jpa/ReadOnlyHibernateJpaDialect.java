@@ -0,0 +1,109 @@
+package org.appfuse.dao.jpa;
+
+import org.hibernate.FlushMode;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.orm.jpa.vendor.HibernateJpaDialect;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceException;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * HibernateJpaDialect that makes read-only transactions cheap on any EntityManager,
+ * including one kept open by OpenEntityManagerInViewFilter: the Session isn't flushed and
+ * loads entities read-only, so Hibernate keeps no snapshots of them and skips them when
+ * dirty checking. The JDBC connection is marked read-only by HibernateJpaDialect.
+ * <p/>
+ * When the transaction ends on an EntityManager that was open before it, all of that is
+ * undone and the entities it loaded are made modifiable again. An entity loaded by a get*
+ * method can then be changed and saved later in the same request (see APF-556). An
+ * EntityManager opened for the transaction is closed with it, so nothing is restored.
+ */
+public class ReadOnlyHibernateJpaDialect extends HibernateJpaDialect {
+
+    @Override
+    public Object beginTransaction(EntityManager entityManager, TransactionDefinition definition)
+            throws PersistenceException, SQLException, TransactionException {
+        if (!definition.isReadOnly()) {
+            return super.beginTransaction(entityManager, definition);
+        }
+
+        Session session = getSession(entityManager);
+        if (!isPreBound(entityManager)) {
+            // an EntityManager opened for the transaction is closed with it, so there's nothing to restore
+            Object transactionData = super.beginTransaction(entityManager, definition);
+            session.setFlushMode(FlushMode.MANUAL);
+            session.setDefaultReadOnly(true);
+            return transactionData;
+        }
+
+        ReadOnlyTransactionData data =
+                new ReadOnlyTransactionData(session, session.getFlushMode(), session.isDefaultReadOnly());
+        data.delegate = super.beginTransaction(entityManager, definition);
+        session.setFlushMode(FlushMode.MANUAL);
+        session.setDefaultReadOnly(true);
+        return data;
+    }
+
+    /**
+     * @return true if the EntityManager was bound to the thread before the transaction,
+     *         e.g. by OpenEntityManagerInViewFilter
+     */
+    private static boolean isPreBound(EntityManager entityManager) {
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof EntityManagerHolder
+                    && ((EntityManagerHolder) resource).getEntityManager() == entityManager) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void cleanupTransaction(Object transactionData) {
+        if (!(transactionData instanceof ReadOnlyTransactionData)) {
+            super.cleanupTransaction(transactionData);
+            return;
+        }
+
+        ReadOnlyTransactionData data = (ReadOnlyTransactionData) transactionData;
+        super.cleanupTransaction(data.delegate);
+        if (data.session.isOpen()) {
+            data.restore();
+        }
+    }
+
+    private static final class ReadOnlyTransactionData {
+        private final Session session;
+        private final FlushMode flushMode;
+        private final boolean defaultReadOnly;
+        private Object delegate;
+
+        private ReadOnlyTransactionData(Session session, FlushMode flushMode, boolean defaultReadOnly) {
+            this.session = session;
+            this.flushMode = flushMode;
+            this.defaultReadOnly = defaultReadOnly;
+        }
+
+        private void restore() {
+            session.setFlushMode(flushMode);
+            session.setDefaultReadOnly(defaultReadOnly);
+            if (!defaultReadOnly) {
+                // the snapshot taken now is the loaded state, so later changes are flushed as usual
+                for (Map.Entry<Object, EntityEntry> entry
+                        : ((SessionImplementor) session).getPersistenceContext().reentrantSafeEntityEntries()) {
+                    if (entry.getValue().isReadOnly()) {
+                        session.setReadOnly(entry.getKey(), false);
+                    }
+                }
+            }
+        }
+    }
+}
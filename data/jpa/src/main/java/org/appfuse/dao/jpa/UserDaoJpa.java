@@ -2,6 +2,7 @@ package org.appfuse.dao.jpa;
 
 import org.appfuse.dao.UserDao;
 import org.appfuse.model.User;
+import org.hibernate.Session;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.annotation.AnnotationUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
@@ -29,8 +30,15 @@ import java.util.List;
 */
 @Repository("userDao")
 public class UserDaoJpa extends GenericDaoJpa<User, Long> implements UserDao, UserDetailsService {
+    private static final String PASSWORD_QUERY = "select password from "
+            + AnnotationUtils.findAnnotation(User.class, Table.class).name() + " where id=?";
+
+    private JdbcTemplate jdbcTemplate;
+
     @Autowired
-    private DataSource dataSource;
+    public void setDataSource(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
 
     /**
      * Constructor that sets the entity to User.class.
@@ -50,17 +58,17 @@ public class UserDaoJpa extends GenericDaoJpa<User, Long> implements UserDao, Us
 
     /**
      * {@inheritDoc}
+     * <p/>
+     * Resolved through Hibernate's username natural id, so repeat logins are served from the
+     * second-level cache. Hibernate updates those entries when a user is saved or removed.
      */
-    @SuppressWarnings("unchecked")
     @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        Query q = getEntityManager().createQuery("select u from User u where username=?");
-        q.setParameter(1, username);
-        List<User> users = q.getResultList();
-        if (users == null || users.isEmpty()) {
+        User user = (User) getEntityManager().unwrap(Session.class).bySimpleNaturalId(User.class).load(username);
+        if (user == null) {
             throw new UsernameNotFoundException("user '" + username + "' not found...");
         } else {
-            return users.get(0);
+            return user;
         }
     }
 
@@ -79,9 +87,6 @@ public class UserDaoJpa extends GenericDaoJpa<User, Long> implements UserDao, Us
      * {@inheritDoc}
      */
     public String getUserPassword(Long userId) {
-        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-        Table table = AnnotationUtils.findAnnotation(User.class, Table.class);
-        return jdbcTemplate.queryForObject(
-                "select password from " + table.name() + " where id=?", String.class, userId);
+        return jdbcTemplate.queryForObject(PASSWORD_QUERY, String.class, userId);
     }
 }
@@ -9,6 +9,8 @@ import org.junit.Test;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -29,4 +31,81 @@ public class GenericDaoTest extends BaseDaoTestCase {
         assertNotNull(user);
         assertEquals("user", user.getUsername());
     }
+
+    @Test
+    public void getAllPaged() {
+        assertEquals(3, genericDao.getCount());
+
+        List<User> page = genericDao.getAll(0, 2, "username", true);
+        assertEquals(2, page.size());
+        assertEquals("admin", page.get(0).getUsername());
+        assertEquals("two_roles_user", page.get(1).getUsername());
+
+        page = genericDao.getAll(2, 2, "username", true);
+        assertEquals(1, page.size());
+        assertEquals("user", page.get(0).getUsername());
+
+        page = genericDao.getAll(0, 1, "username", false);
+        assertEquals("user", page.get(0).getUsername());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getAllPagedRejectsUnknownSortProperty() {
+        genericDao.getAll(0, 2, "nickname", true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void getAllPagedRejectsCollectionSortProperty() {
+        genericDao.getAll(0, 2, "roles", true);
+    }
+
+    @Test
+    public void getAllAfter() {
+        List<User> page = genericDao.getAllAfter(null, 2);
+        assertEquals(2, page.size());
+        assertTrue(page.get(0).getId() < page.get(1).getId());
+
+        List<User> rest = genericDao.getAllAfter(page.get(1).getId(), 2);
+        assertEquals(1, rest.size());
+        assertTrue(rest.get(0).getId() > page.get(1).getId());
+    }
+
+    @Test
+    public void scrollAll() {
+        final List<String> usernames = new ArrayList<String>();
+        genericDao.scrollAll(2, new ResultHandler<User>() {
+            public void handle(User user) {
+                usernames.add(user.getUsername());
+            }
+        });
+        assertEquals(3, usernames.size());
+        assertTrue(usernames.contains("admin"));
+    }
+
+    @Test
+    public void saveAllAndRemoveAll() {
+        List<User> users = new ArrayList<User>();
+        for (int i = 0; i < 3; i++) {
+            User user = new User("batchuser" + i);
+            user.setPassword("batchpass");
+            user.setFirstName("Batch");
+            user.setLastName("User" + i);
+            user.setEmail("batchuser" + i + "@appfuse.org");
+            user.getAddress().setCity("Denver");
+            user.getAddress().setPostalCode("80210");
+            users.add(user);
+        }
+
+        genericDao.saveAll(users);
+        assertEquals(6, genericDao.getCount());
+
+        List<Long> ids = new ArrayList<Long>();
+        for (User user : users) {
+            assertNotNull(user.getId());
+            ids.add(user.getId());
+        }
+
+        genericDao.removeAll(ids);
+        assertEquals(3, genericDao.getCount());
+    }
 }
@@ -6,6 +6,8 @@ import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 
 import javax.transaction.Transactional;
+import java.util.HashMap;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -56,4 +58,13 @@ public class RoleDaoTest extends BaseDaoTestCase {
         role = dao.getRoleByName("testrole");
         assertNull(role);
     }
+
+    @Test
+    public void testFindByNamedQuery() {
+        HashMap<String, Object> queryParams = new HashMap<String, Object>();
+        queryParams.put("name", Constants.USER_ROLE);
+        List<Role> roles = dao.findByNamedQuery("findRoleByName", queryParams);
+        assertNotNull(roles);
+        assertTrue(roles.size() > 0);
+    }
 }
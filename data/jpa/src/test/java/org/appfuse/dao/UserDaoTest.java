@@ -6,6 +6,8 @@ import org.appfuse.model.Role;
 import org.appfuse.model.User;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.InvalidDataAccessApiUsageException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.orm.ObjectRetrievalFailureException;
 
 import javax.persistence.EntityManager;
@@ -38,6 +40,25 @@ public class UserDaoTest extends BaseDaoTestCase {
         assertTrue(user.isEnabled());
     }
 
+    @Test
+    public void testLoadUserByUsernameAfterRename() throws Exception {
+        User user = (User) dao.loadUserByUsername("user");
+        assertEquals(Long.valueOf(-1L), user.getId());
+        assertEquals(1, user.getRoles().size());
+
+        user.setUsername("renamed");
+        dao.saveUser(user);
+        entityManager.flush();
+
+        assertEquals(Long.valueOf(-1L), ((User) dao.loadUserByUsername("renamed")).getId());
+        try {
+            dao.loadUserByUsername("user");
+            fail("old username should no longer resolve");
+        } catch (UsernameNotFoundException e) {
+            assertNotNull(e);
+        }
+    }
+
     @Test
     public void testGetUserPassword() throws Exception {
         User user = dao.get(-1L);
@@ -143,4 +164,30 @@ public class UserDaoTest extends BaseDaoTestCase {
         found = dao.search("Tomcat");
         assertEquals(1, found.size());
     }
+
+    @Test
+    public void testUserSearchPaged() throws Exception {
+        dao.reindex();
+
+        assertEquals(3, dao.searchCount("Denver"));
+
+        List<User> found = dao.search("Denver", 0, 2, "username", true);
+        assertEquals(2, found.size());
+        assertEquals("admin", found.get(0).getUsername());
+        assertEquals("two_roles_user", found.get(1).getUsername());
+
+        found = dao.search("Denver", 2, 2, "username", true);
+        assertEquals(1, found.size());
+        assertEquals("user", found.get(0).getUsername());
+
+        found = dao.search("Denver", 0, 1, "username", false);
+        assertEquals("user", found.get(0).getUsername());
+    }
+
+    @Test(expected = InvalidDataAccessApiUsageException.class)
+    public void testUserSearchPagedRejectsUnknownSortProperty() throws Exception {
+        // as the paged getAll does, rather than falling back to relevance order; the
+        // IllegalArgumentException is translated by the @Repository proxy
+        dao.search("Denver", 0, 2, "nickname", true);
+    }
 }
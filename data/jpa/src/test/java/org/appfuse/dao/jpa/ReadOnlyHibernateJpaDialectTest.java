@@ -0,0 +1,94 @@
+package org.appfuse.dao.jpa;
+
+import org.appfuse.dao.BaseDaoTestCase;
+import org.appfuse.dao.UserDao;
+import org.appfuse.model.User;
+import org.hibernate.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+
+import static org.junit.Assert.*;
+
+/**
+ * Loads a user in a read-only transaction on an EntityManager kept open for the "request", the
+ * way OpenEntityManagerInViewFilter does, and saves a change to it afterwards (APF-556).
+ */
+@Transactional(Transactional.TxType.NOT_SUPPORTED)
+public class ReadOnlyHibernateJpaDialectTest extends BaseDaoTestCase {
+    @Autowired
+    private UserDao userDao;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+
+    @Before
+    public void setUp() {
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+    }
+
+    @Test
+    public void testEntityLoadedReadOnlyCanBeSavedLater() {
+        final String phoneNumber = getUser().getPhoneNumber();
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        final Session session = entityManager.unwrap(Session.class);
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(entityManager));
+        try {
+            final User user = readOnly.execute(new TransactionCallback<User>() {
+                public User doInTransaction(TransactionStatus status) {
+                    User user = userDao.get(-1L);
+                    assertTrue(session.isReadOnly(user));
+                    return user;
+                }
+            });
+            assertFalse(session.isReadOnly(user));
+
+            user.setPhoneNumber("303-555-4321");
+            readWrite.execute(new TransactionCallback<User>() {
+                public User doInTransaction(TransactionStatus status) {
+                    return userDao.save(user);
+                }
+            });
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            entityManager.close();
+        }
+
+        try {
+            assertEquals("303-555-4321", getUser().getPhoneNumber());
+        } finally {
+            readWrite.execute(new TransactionCallback<User>() {
+                public User doInTransaction(TransactionStatus status) {
+                    User user = userDao.get(-1L);
+                    user.setPhoneNumber(phoneNumber);
+                    return userDao.save(user);
+                }
+            });
+        }
+    }
+
+    private User getUser() {
+        return readOnly.execute(new TransactionCallback<User>() {
+            public User doInTransaction(TransactionStatus status) {
+                return userDao.get(-1L);
+            }
+        });
+    }
+}
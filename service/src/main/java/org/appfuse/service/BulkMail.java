@@ -0,0 +1,321 @@
+package org.appfuse.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.MailSender;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One bulk mailing, started with {@link MailEngine#startBulkMail}. Recipients are added
+ * one at a time with {@link #add}, so they can be streamed from the database. Templates
+ * are rendered on a small pool of threads and the messages are sent in batches by a fixed
+ * number of sender threads, each batch over one SMTP connection. {@link #addAll} adds the
+ * recipients on a thread of the mailing's own instead.
+ * <p/>
+ * Sending is capped at <code>messagesPerSecond</code> and bypasses the {@link MailQueue},
+ * so transactional mail such as password recovery still goes out during a large mailing.
+ * When rendering or sending falls behind, {@link #add} blocks instead of buffering.
+ */
+public class BulkMail {
+    private static final SimpleMailMessage END = new SimpleMailMessage();
+    private static final int PROGRESS_INTERVAL = 1000;
+
+    private final Log log = LogFactory.getLog(BulkMail.class);
+    private final MailEngine mailEngine;
+    private final MailSender mailSender;
+    private final SimpleMailMessage template;
+    private final String templateName;
+    private final Locale locale;
+    private final long expectedCount;
+    private final int batchSize;
+    private final int messagesPerSecond;
+    private final ExecutorService renderers;
+    private final ExecutorService workers;
+    private final BlockingQueue<SimpleMailMessage> rendered;
+    private final List<Future<?>> senders = new ArrayList<Future<?>>();
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    private final AtomicLong addedCount = new AtomicLong();
+    private final AtomicLong sentCount = new AtomicLong();
+    private final AtomicLong failedCount = new AtomicLong();
+    private final long startedAt = System.currentTimeMillis();
+    private volatile long finishedAt;
+    private long nextSendAt = System.nanoTime();
+
+    BulkMail(MailEngine mailEngine, MailSender mailSender, SimpleMailMessage template, String templateName,
+             Locale locale, long expectedCount, int renderThreads, int connections, int batchSize,
+             int messagesPerSecond) {
+        this.mailEngine = mailEngine;
+        this.mailSender = mailSender;
+        this.template = new SimpleMailMessage(template);
+        this.templateName = templateName;
+        this.locale = locale;
+        this.expectedCount = expectedCount;
+        this.batchSize = batchSize;
+        this.messagesPerSecond = messagesPerSecond;
+        this.rendered = new ArrayBlockingQueue<SimpleMailMessage>(batchSize * connections * 2);
+
+        // when the renderers are busy, the thread adding recipients renders the message itself
+        this.renderers = new ThreadPoolExecutor(renderThreads, renderThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(batchSize * renderThreads),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        // one thread per connection, and one for addAll
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(connections + 1, new ThreadFactory() {
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "bulk-mail-" + threadNumber.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        for (int i = 0; i < connections; i++) {
+            senders.add(workers.submit(new Sender()));
+        }
+    }
+
+    /**
+     * Adds a recipient. The template is merged with the model on one of the render threads.
+     *
+     * @param to the recipient's address
+     * @param model a map containing key/value pairs for the template
+     */
+    public void add(final String to, final Map model) {
+        addedCount.incrementAndGet();
+        renderers.execute(new Runnable() {
+            public void run() {
+                render(to, model);
+            }
+        });
+    }
+
+    /**
+     * Adds recipients and then finishes the mailing, both on one of the mailing's threads,
+     * so this returns at once. Use {@link #awaitFinished} to wait for the mailing.
+     *
+     * @param recipients calls {@link #add} for each recipient
+     */
+    public void addAll(final Runnable recipients) {
+        workers.execute(new Runnable() {
+            public void run() {
+                try {
+                    recipients.run();
+                } catch (RuntimeException e) {
+                    log.error("Could not read the recipients of bulk mail '" + templateName + "'", e);
+                } finally {
+                    try {
+                        finish();
+                    } catch (InterruptedException e) {
+                        log.warn("Interrupted while sending bulk mail '" + templateName + "', "
+                                + sentCount.get() + " of " + addedCount.get() + " sent");
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Waits until every message added has been sent or has failed.
+     *
+     * @throws InterruptedException if interrupted while waiting; remaining messages are dropped
+     */
+    public void finish() throws InterruptedException {
+        try {
+            renderers.shutdown();
+            while (!renderers.awaitTermination(1, TimeUnit.SECONDS)) {
+                logProgress();
+            }
+            for (int i = 0; i < senders.size(); i++) {
+                rendered.put(END);
+            }
+            for (Future<?> sender : senders) {
+                try {
+                    sender.get();
+                } catch (ExecutionException e) {
+                    log.error("Bulk mail sender failed", e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            renderers.shutdownNow();
+            for (Future<?> sender : senders) {
+                sender.cancel(true);
+            }
+            throw e;
+        } finally {
+            workers.shutdown();
+            finishedAt = System.currentTimeMillis();
+            finished.countDown();
+        }
+        log.info("Bulk mail '" + templateName + "' finished: " + sentCount.get() + " sent, " + failedCount.get()
+                + " failed in " + (finishedAt - startedAt) + " ms (" + getMessagesPerSecond() + " messages/s)");
+    }
+
+    /**
+     * @return the number of recipients added so far
+     */
+    public long getAddedCount() {
+        return addedCount.get();
+    }
+
+    /**
+     * @return the number of recipients expected, as given when the mailing was started
+     */
+    public long getExpectedCount() {
+        return expectedCount;
+    }
+
+    public long getSentCount() {
+        return sentCount.get();
+    }
+
+    public long getFailedCount() {
+        return failedCount.get();
+    }
+
+    public boolean isFinished() {
+        return finishedAt != 0;
+    }
+
+    /**
+     * Waits for {@link #finish} to return, when another thread adds the recipients.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the unit of the timeout
+     * @return true if the mailing finished, false if the timeout elapsed first
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitFinished(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    /**
+     * @return the average number of messages sent per second since the mailing started
+     */
+    public double getMessagesPerSecond() {
+        long end = isFinished() ? finishedAt : System.currentTimeMillis();
+        long elapsed = Math.max(end - startedAt, 1);
+        return sentCount.get() * 1000d / elapsed;
+    }
+
+    private void render(String to, Map model) {
+        SimpleMailMessage message = new SimpleMailMessage(template);
+        message.setTo(to);
+        try {
+            message.setText(mailEngine.render(templateName, locale, model));
+            rendered.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failedCount.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.error("Could not render '" + templateName + "' for " + to + ": " + e.getMessage());
+            failedCount.incrementAndGet();
+        }
+    }
+
+    private void send(List<SimpleMailMessage> batch) throws InterruptedException {
+        throttle(batch.size());
+        try {
+            mailSender.send(batch.toArray(new SimpleMailMessage[batch.size()]));
+            sentCount.addAndGet(batch.size());
+        } catch (MailSendException e) {
+            // failed messages are listed when some got through, otherwise the whole batch failed
+            int failed = e.getFailedMessages().isEmpty() ? batch.size() : e.getFailedMessages().size();
+            failedCount.addAndGet(failed);
+            sentCount.addAndGet(batch.size() - failed);
+            log.error("Could not send " + failed + " bulk message(s): " + e.getMessage());
+        } catch (MailException e) {
+            failedCount.addAndGet(batch.size());
+            log.error("Could not send " + batch.size() + " bulk message(s): " + e.getMessage());
+        } catch (RuntimeException e) {
+            // the sender must keep draining the queue, or rendering and finish() block for good
+            failedCount.addAndGet(batch.size());
+            log.error("Could not send " + batch.size() + " bulk message(s)", e);
+        }
+        logProgress();
+    }
+
+    /**
+     * Waits until the batch may be sent without going over messagesPerSecond.
+     */
+    private void throttle(int messages) throws InterruptedException {
+        if (messagesPerSecond <= 0) {
+            return;
+        }
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            if (nextSendAt < now) {
+                nextSendAt = now;
+            }
+            wait = nextSendAt - now;
+            nextSendAt += TimeUnit.SECONDS.toNanos(messages) / messagesPerSecond;
+        }
+        if (wait > 0) {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        }
+    }
+
+    private void logProgress() {
+        if (log.isInfoEnabled()) {
+            long done = sentCount.get() + failedCount.get();
+            if (done > 0 && done % PROGRESS_INTERVAL < batchSize) {
+                log.info("Bulk mail '" + templateName + "': " + done + " of " + expectedCount + " done ("
+                        + failedCount.get() + " failed, " + Math.round(getMessagesPerSecond()) + " messages/s)");
+            }
+        }
+    }
+
+    private class Sender implements Runnable {
+        public void run() {
+            List<SimpleMailMessage> batch = new ArrayList<SimpleMailMessage>(batchSize);
+            try {
+                while (true) {
+                    SimpleMailMessage message = rendered.take();
+                    if (message == END) {
+                        return;
+                    }
+                    batch.add(message);
+                    rendered.drainTo(batch, batchSize - 1);
+
+                    // END markers only follow the last message, and one is meant for each sender
+                    int ends = 0;
+                    for (Iterator<SimpleMailMessage> it = batch.iterator(); it.hasNext();) {
+                        if (it.next() == END) {
+                            it.remove();
+                            ends++;
+                        }
+                    }
+                    send(batch);
+                    batch.clear();
+                    if (ends > 0) {
+                        for (int i = 1; i < ends; i++) {
+                            rendered.put(END);
+                        }
+                        return;
+                    }
+                }
+            } catch (InterruptedException e) {
+                failedCount.addAndGet(batch.size());
+            }
+        }
+    }
+}
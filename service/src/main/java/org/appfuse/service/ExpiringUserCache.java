@@ -0,0 +1,158 @@
+package org.appfuse.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.appfuse.model.User;
+import org.springframework.security.core.userdetails.UserCache;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, expiring UserCache for the authentication provider, so form logins don't
+ * query the database every time. The provider still loads the user from the DAO when
+ * a cached password doesn't match, so a password changed elsewhere works at once.
+ * UserManagerImpl evicts a user whenever it saves or removes them.
+ * <p/>
+ * To use it, set it as the <code>userCache</code> of the authentication provider:
+ * <pre>
+ *      &lt;bean id="authenticationProvider" class="org.appfuse.service.RehashingAuthenticationProvider"&gt;
+ *          &lt;property name="userDetailsService" ref="userDao"/&gt;
+ *          &lt;property name="userCache" ref="userCache"/&gt;
+ *      &lt;/bean&gt;
+ * </pre>
+ */
+public class ExpiringUserCache implements UserCache {
+    private final Log log = LogFactory.getLog(ExpiringUserCache.class);
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private int maxSize = 1000;
+    private long timeToLive = 300000;
+    private final Map<String, CachedUser> cache = new LinkedHashMap<String, CachedUser>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+            return size() > maxSize;
+        }
+    };
+
+    /**
+     * Maximum number of users kept; the least recently used is dropped first (default 1000).
+     *
+     * @param maxSize the maximum number of cached users
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * How long a user is served from the cache before being reloaded (default 5 minutes).
+     * This bounds how long changes made outside UserManager, such as a disabled account or
+     * new roles, go unnoticed; a changed password is picked up on the next login.
+     *
+     * @param seconds the time to live in seconds
+     */
+    public void setTimeToLiveSeconds(int seconds) {
+        this.timeToLive = seconds * 1000L;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public UserDetails getUserFromCache(String username) {
+        synchronized (cache) {
+            CachedUser cached = cache.get(username);
+            if (cached == null || cached.expiresAt <= System.currentTimeMillis()) {
+                cache.remove(username);
+                misses.incrementAndGet();
+                return null;
+            }
+            hits.incrementAndGet();
+            return cached.user;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void putUserInCache(UserDetails user) {
+        synchronized (cache) {
+            cache.put(user.getUsername(), new CachedUser(user, System.currentTimeMillis() + timeToLive));
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void removeUserFromCache(String username) {
+        synchronized (cache) {
+            cache.remove(username);
+        }
+    }
+
+    /**
+     * Removes a user by id, which also catches entries cached under a username that has
+     * since been changed.
+     *
+     * @param userId the user's id
+     */
+    public void removeUserFromCache(Long userId) {
+        synchronized (cache) {
+            for (Iterator<CachedUser> it = cache.values().iterator(); it.hasNext();) {
+                UserDetails cached = it.next().user;
+                if (cached instanceof User && userId.equals(((User) cached).getId())) {
+                    it.remove();
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Evicted user " + userId + " from cache");
+        }
+    }
+
+    /**
+     * Empties the cache and resets the statistics.
+     */
+    public void clear() {
+        synchronized (cache) {
+            cache.clear();
+        }
+        hits.set(0);
+        misses.set(0);
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * @return the share of lookups served from the cache, between 0 and 1
+     */
+    public double getHitRatio() {
+        long hitCount = hits.get();
+        long total = hitCount + misses.get();
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    public int getSize() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    private static final class CachedUser {
+        private final UserDetails user;
+        private final long expiresAt;
+
+        private CachedUser(UserDetails user, long expiresAt) {
+            this.user = user;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package org.appfuse.service;
 
+import org.appfuse.dao.ResultHandler;
+
 import java.io.Serializable;
 import java.util.List;
 
@@ -23,6 +25,31 @@ public interface GenericManager<T, PK extends Serializable> {
      */
     List<T> getAll();
 
+    /**
+     * Generic method used to get one page of objects of a particular type.
+     * Sorting and paging are done by the database, so only the page is loaded.
+     * @param firstResult the index of the first object to return (zero-based)
+     * @param maxResults the maximum number of objects to return
+     * @param sortProperty the property to sort by, or null to sort by primary key
+     * @param ascending true to sort ascending, false to sort descending
+     * @return List of populated objects in the requested page
+     */
+    List<T> getAll(int firstResult, int maxResults, String sortProperty, boolean ascending);
+
+    /**
+     * Generic method used to count all objects of a particular type.
+     * @return the total number of objects
+     */
+    long getCount();
+
+    /**
+     * Generic method used to walk through all objects of a particular type, e.g. for
+     * exports or batch jobs, without loading them all in memory.
+     * @param fetchSize the number of objects read from the database at a time
+     * @param handler the callback invoked for each object
+     */
+    void scrollAll(int fetchSize, ResultHandler<T> handler);
+
     /**
      * Generic method to get an object based on class and identifier. An
      * ObjectRetrievalFailureException Runtime Exception is thrown if
@@ -67,6 +94,30 @@ public interface GenericManager<T, PK extends Serializable> {
      * @return a list of matched objects
      */
     List<T> search(String searchTerm, Class clazz);
+
+    /**
+     * Generic method to get one page of the objects matching a search term, or of all
+     * objects if there is no search term.
+     * @param searchTerm the search term
+     * @param firstResult the index of the first object to return (zero-based)
+     * @param maxResults the maximum number of objects to return
+     * @param sortProperty the property to sort by, or null for the default order
+     * @param ascending true to sort ascending, false to sort descending
+     * @return a list of matched objects in the requested page
+     * @throws IllegalArgumentException if sortProperty is not a single-valued persistent property,
+     *                                  whether or not there is a search term (translated to an
+     *                                  InvalidDataAccessApiUsageException by JPA DAOs)
+     */
+    List<T> search(String searchTerm, int firstResult, int maxResults, String sortProperty, boolean ascending);
+
+    /**
+     * Generic method to count the objects matching a search term, or all objects if
+     * there is no search term.
+     * @param searchTerm the search term
+     * @return the number of matched objects
+     */
+    long searchCount(String searchTerm);
+
     /**
      * Generic method to regenerate full text index of the persistent class T
      */
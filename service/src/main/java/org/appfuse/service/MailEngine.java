@@ -4,6 +4,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.apache.velocity.app.VelocityEngine;
 import org.apache.velocity.exception.VelocityException;
+import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.mail.MailException;
 import org.springframework.mail.MailSender;
@@ -14,11 +15,13 @@ import org.springframework.ui.velocity.VelocityEngineUtils;
 
 import javax.mail.MessagingException;
 import javax.mail.internet.MimeMessage;
+import java.util.Locale;
 import java.util.Map;
 
 /**
  * Class for sending e-mail messages based on Velocity templates
- * or with attachments.
+ * or with attachments. Simple messages are handed to a {@link MailQueue}
+ * when one is set; messages with attachments are always sent right away.
  *
  * @author Matt Raible
  */
@@ -27,6 +30,12 @@ public class MailEngine {
     private MailSender mailSender;
     private VelocityEngine velocityEngine;
     private String defaultFrom;
+    private MailQueue mailQueue;
+    private MailTemplateRenderer templateRenderer;
+    private int bulkRenderThreads = 2;
+    private int bulkConnections = 2;
+    private int bulkBatchSize = 50;
+    private int bulkMessagesPerSecond = 20;
 
     public void setMailSender(MailSender mailSender) {
         this.mailSender = mailSender;
@@ -44,9 +53,61 @@ public class MailEngine {
         this.defaultFrom = from;
     }
 
+    public void setMailQueue(MailQueue mailQueue) {
+        this.mailQueue = mailQueue;
+    }
+
+    /**
+     * Renders templates from a cache of parsed templates. If not set, each message
+     * goes through VelocityEngineUtils.
+     *
+     * @param templateRenderer the renderer to use
+     */
+    public void setTemplateRenderer(MailTemplateRenderer templateRenderer) {
+        this.templateRenderer = templateRenderer;
+    }
+
+    /**
+     * Number of threads rendering templates for a bulk mailing (default 2).
+     *
+     * @param bulkRenderThreads the number of render threads
+     */
+    public void setBulkRenderThreads(int bulkRenderThreads) {
+        this.bulkRenderThreads = bulkRenderThreads;
+    }
+
+    /**
+     * Number of SMTP connections a bulk mailing sends over at the same time (default 2).
+     *
+     * @param bulkConnections the number of sender threads
+     */
+    public void setBulkConnections(int bulkConnections) {
+        this.bulkConnections = bulkConnections;
+    }
+
     /**
-     * Send a simple message based on a Velocity template.
-     * @param msg the message to populate
+     * Maximum number of bulk messages sent over one SMTP connection (default 50).
+     *
+     * @param bulkBatchSize the batch size
+     */
+    public void setBulkBatchSize(int bulkBatchSize) {
+        this.bulkBatchSize = bulkBatchSize;
+    }
+
+    /**
+     * Upper bound on the bulk sending rate, which leaves room on the SMTP server for
+     * other mail (default 20). Zero or less means no limit.
+     *
+     * @param bulkMessagesPerSecond the maximum number of bulk messages per second
+     */
+    public void setBulkMessagesPerSecond(int bulkMessagesPerSecond) {
+        this.bulkMessagesPerSecond = bulkMessagesPerSecond;
+    }
+
+    /**
+     * Send a simple message based on a Velocity template. The template is rendered
+     * on the calling thread; msg itself is left unchanged.
+     * @param msg the message to copy and populate
      * @param templateName the Velocity template to use (relative to classpath)
      * @param model a map containing key/value pairs
      */
@@ -55,26 +116,60 @@ public class MailEngine {
         String result = null;
 
         try {
-            result =
-                VelocityEngineUtils.mergeTemplateIntoString(velocityEngine,
-                                                            templateName, "UTF-8", model);
+            result = render(templateName, LocaleContextHolder.getLocale(), model);
         } catch (VelocityException e) {
             e.printStackTrace();
             log.error(e.getMessage());
         }
 
-        msg.setText(result);
-        send(msg);
+        SimpleMailMessage message = new SimpleMailMessage(msg);
+        message.setText(result);
+        deliver(message);
     }
 
     /**
-     * Send a simple message with pre-populated values.
+     * Starts sending a template to many recipients, who are then added with
+     * {@link BulkMail#add}. Call {@link BulkMail#finish} once all have been added.
+     * Bulk messages are sent directly at a limited rate, not through the mail queue.
+     * @param msg the message to copy for each recipient, with subject and from set
+     * @param templateName the Velocity template to use (relative to classpath)
+     * @param expectedCount the number of recipients expected, used to report progress
+     * @return the mailing to add recipients to
+     */
+    public BulkMail startBulkMail(SimpleMailMessage msg, String templateName, long expectedCount) {
+        if (msg.getFrom() == null) {
+            msg = new SimpleMailMessage(msg);
+            msg.setFrom(defaultFrom);
+        }
+        return new BulkMail(this, mailSender, msg, templateName, LocaleContextHolder.getLocale(), expectedCount,
+                bulkRenderThreads, bulkConnections, bulkBatchSize, bulkMessagesPerSecond);
+    }
+
+    @SuppressWarnings("unchecked")
+    String render(String templateName, Locale locale, Map model) throws VelocityException {
+        if (templateRenderer != null) {
+            return templateRenderer.render(templateName, locale, model);
+        }
+        return VelocityEngineUtils.mergeTemplateIntoString(velocityEngine, templateName, "UTF-8", model);
+    }
+
+    /**
+     * Send a simple message with pre-populated values. A copy is sent, so msg
+     * can be reused once this returns.
      * @param msg the message to send
-     * @throws org.springframework.mail.MailException when SMTP server is down
+     * @throws org.springframework.mail.MailException when SMTP server is down and the message isn't queued
      */
     public void send(SimpleMailMessage msg) throws MailException {
+        deliver(new SimpleMailMessage(msg));
+    }
+
+    private void deliver(SimpleMailMessage msg) throws MailException {
         try {
-            mailSender.send(msg);
+            if (mailQueue != null && mailQueue.isAsync()) {
+                mailQueue.enqueue(msg);
+            } else {
+                mailSender.send(msg);
+            }
         } catch (MailException ex) {
             log.error(ex.getMessage());
             throw ex;
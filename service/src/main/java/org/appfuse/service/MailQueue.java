@@ -0,0 +1,502 @@
+package org.appfuse.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.MailSender;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sends mail from a bounded queue on background threads so callers don't wait on SMTP.
+ * Each worker sends up to <code>batchSize</code> messages over one connection, failed
+ * messages are retried with exponential backoff, and every queued message is written to
+ * <code>spoolDirectory</code> until it is sent so that mail survives a restart. Spooled
+ * messages are plain properties files, never serialized objects.
+ * <p/>
+ * When the queue is full, or <code>async</code> is false, messages are sent on the
+ * calling thread as before.
+ */
+public class MailQueue implements InitializingBean, DisposableBean {
+    private static final String SPOOL_SUFFIX = ".mail";
+    private static final String FAILED_SUFFIX = ".failed";
+    private static final String ENCODING = "UTF-8";
+    private static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+
+    private final Log log = LogFactory.getLog(MailQueue.class);
+    private final DelayQueue<QueuedMail> queue = new DelayQueue<QueuedMail>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private final List<Thread> workers = new ArrayList<Thread>();
+    private volatile boolean running;
+
+    private MailSender mailSender;
+    private boolean async = true;
+    private int capacity = 1000;
+    private int workerCount = 2;
+    private int batchSize = 20;
+    private int maxAttempts = 5;
+    private long retryDelay = 1000;
+    private long maxRetryDelay = 300000;
+    private File spoolDirectory;
+
+    public void setMailSender(MailSender mailSender) {
+        this.mailSender = mailSender;
+    }
+
+    /**
+     * Whether to send in the background (default true). When false, messages are sent
+     * on the calling thread and no workers are started.
+     *
+     * @param async true to queue messages
+     */
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    /**
+     * Maximum number of messages waiting to be sent (default 1000).
+     *
+     * @param capacity the queue capacity
+     */
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Number of sending threads (default 2).
+     *
+     * @param workerCount the number of workers
+     */
+    public void setWorkerCount(int workerCount) {
+        this.workerCount = workerCount;
+    }
+
+    /**
+     * Maximum number of messages sent over one SMTP connection (default 20).
+     *
+     * @param batchSize the batch size
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Number of times a message is tried before it is given up on (default 5).
+     *
+     * @param maxAttempts the maximum number of attempts
+     */
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Delay before the first retry; it doubles on each further attempt (default 1 second).
+     *
+     * @param retryDelay the delay in milliseconds
+     */
+    public void setRetryDelay(long retryDelay) {
+        this.retryDelay = retryDelay;
+    }
+
+    /**
+     * Upper bound for the retry delay (default 5 minutes).
+     *
+     * @param maxRetryDelay the delay in milliseconds
+     */
+    public void setMaxRetryDelay(long maxRetryDelay) {
+        this.maxRetryDelay = maxRetryDelay;
+    }
+
+    /**
+     * Directory queued messages are written to until they are sent. Messages that are
+     * given up on are kept there with a ".failed" extension. If not set, queued mail is
+     * only held in memory.
+     * <p/>
+     * The directory is created readable by its owner only. It must belong to the user
+     * running the application and not be writable by anyone else, so it shouldn't be a
+     * shared directory such as java.io.tmpdir; otherwise mail is only held in memory.
+     *
+     * @param spoolDirectory the spool directory
+     */
+    public void setSpoolDirectory(File spoolDirectory) {
+        this.spoolDirectory = spoolDirectory;
+    }
+
+    /**
+     * @return the number of messages queued or being sent
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Recovers spooled messages left by a previous run and starts the workers.
+     */
+    public void afterPropertiesSet() {
+        if (mailSender == null) {
+            throw new IllegalArgumentException("Property 'mailSender' is required");
+        }
+        if (!async) {
+            return;
+        }
+        if (spoolDirectory != null) {
+            UserPrincipal owner = prepareSpoolDirectory();
+            if (owner == null) {
+                spoolDirectory = null;
+            } else {
+                recover(owner);
+            }
+        }
+
+        running = true;
+        for (int i = 0; i < workerCount; i++) {
+            Thread worker = new Thread(new Worker(), "mail-queue-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Stops the workers. Messages still queued stay in the spool for the next start.
+     */
+    public void destroy() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (Thread worker : workers) {
+            worker.join(10000);
+        }
+        workers.clear();
+    }
+
+    /**
+     * Queues a message for sending.
+     *
+     * @param message the message, which must not be modified afterwards
+     * @throws MailException when the message has to be sent right away and that fails
+     */
+    public void enqueue(SimpleMailMessage message) throws MailException {
+        if (!running) {
+            mailSender.send(message);
+            return;
+        }
+        if (pending.incrementAndGet() > capacity) {
+            pending.decrementAndGet();
+            log.warn("Mail queue is full, sending on the calling thread");
+            mailSender.send(message);
+            return;
+        }
+        queue.offer(new QueuedMail(message, spool(message)));
+    }
+
+    private void send(List<QueuedMail> batch) {
+        SimpleMailMessage[] messages = new SimpleMailMessage[batch.size()];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = batch.get(i).message;
+        }
+
+        try {
+            mailSender.send(messages);
+            for (QueuedMail mail : batch) {
+                completed(mail);
+            }
+        } catch (MailSendException e) {
+            // failed messages are listed when some got through, otherwise the whole batch failed
+            Map<Object, Exception> failed = e.getFailedMessages();
+            for (QueuedMail mail : batch) {
+                if (failed.isEmpty() || failed.containsKey(mail.message)) {
+                    retry(mail, e);
+                } else {
+                    completed(mail);
+                }
+            }
+        } catch (MailException e) {
+            for (QueuedMail mail : batch) {
+                retry(mail, e);
+            }
+        }
+    }
+
+    private void completed(QueuedMail mail) {
+        if (mail.spoolFile != null && !mail.spoolFile.delete()) {
+            log.warn("Could not delete spooled mail " + mail.spoolFile);
+        }
+        pending.decrementAndGet();
+    }
+
+    private void retry(QueuedMail mail, MailException e) {
+        mail.attempts++;
+        if (mail.attempts >= maxAttempts) {
+            log.error("Giving up on mail to " + Arrays.toString(mail.message.getTo()) + " after "
+                    + mail.attempts + " attempts: " + e.getMessage());
+            if (mail.spoolFile != null) {
+                mail.spoolFile.renameTo(new File(spoolDirectory, mail.spoolFile.getName() + FAILED_SUFFIX));
+            }
+            pending.decrementAndGet();
+            return;
+        }
+
+        long delay = Math.min(maxRetryDelay, retryDelay << Math.min(mail.attempts - 1, 30));
+        log.warn("Could not send mail to " + Arrays.toString(mail.message.getTo()) + ", retrying in "
+                + delay + " ms: " + e.getMessage());
+        mail.dueAt = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+        queue.offer(mail);
+    }
+
+    private File spool(SimpleMailMessage message) {
+        if (spoolDirectory == null) {
+            return null;
+        }
+        String name = System.currentTimeMillis() + "-" + sequence.incrementAndGet();
+        File tmp = new File(spoolDirectory, name + ".tmp");
+        File file = new File(spoolDirectory, name + SPOOL_SUFFIX);
+        try {
+            // messages can carry password reset links, so only the owner may read them
+            if (POSIX) {
+                Files.createFile(tmp.toPath(), PosixFilePermissions.asFileAttribute(
+                        PosixFilePermissions.fromString("rw-------")));
+            } else {
+                Files.createFile(tmp.toPath());
+            }
+            Writer out = new OutputStreamWriter(Files.newOutputStream(tmp.toPath()), ENCODING);
+            try {
+                toProperties(message).store(out, null);
+            } finally {
+                out.close();
+            }
+            if (tmp.renameTo(file)) {
+                return file;
+            }
+            log.warn("Could not spool mail to " + file);
+        } catch (IOException e) {
+            log.warn("Could not spool mail to " + file + ": " + e.getMessage());
+        }
+        tmp.delete();
+        return null;
+    }
+
+    /**
+     * Creates the spool directory if needed and checks that nobody else can read, write or enter it.
+     *
+     * @return the user the application runs as, or null if the directory can't be used
+     */
+    private UserPrincipal prepareSpoolDirectory() {
+        Path dir = spoolDirectory.toPath();
+        try {
+            if (!Files.isDirectory(dir)) {
+                if (POSIX) {
+                    Files.createDirectories(dir, PosixFilePermissions.asFileAttribute(
+                            PosixFilePermissions.fromString("rwx------")));
+                } else {
+                    Files.createDirectories(dir);
+                }
+            }
+
+            UserPrincipal user = getProcessUser();
+            if (!user.equals(Files.getOwner(dir, LinkOption.NOFOLLOW_LINKS))) {
+                log.warn("Mail spool directory " + spoolDirectory + " belongs to another user, queuing in memory only");
+                return null;
+            }
+            if (POSIX) {
+                Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(dir, LinkOption.NOFOLLOW_LINKS);
+                permissions.retainAll(EnumSet.of(PosixFilePermission.GROUP_READ, PosixFilePermission.GROUP_WRITE,
+                        PosixFilePermission.GROUP_EXECUTE, PosixFilePermission.OTHERS_READ,
+                        PosixFilePermission.OTHERS_WRITE, PosixFilePermission.OTHERS_EXECUTE));
+                if (!permissions.isEmpty()) {
+                    log.warn("Mail spool directory " + spoolDirectory + " is accessible to other users ("
+                            + PosixFilePermissions.toString(Files.getPosixFilePermissions(dir))
+                            + "), queuing in memory only");
+                    return null;
+                }
+            }
+            return user;
+        } catch (IOException e) {
+            log.warn("Could not use mail spool directory " + spoolDirectory + ", queuing in memory only: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * The owner of a file this process creates, which unlike the user.name system
+     * property is always the user the application actually runs as.
+     */
+    private static UserPrincipal getProcessUser() throws IOException {
+        Path probe = Files.createTempFile("mail-spool", ".owner");
+        try {
+            return Files.getOwner(probe);
+        } finally {
+            Files.delete(probe);
+        }
+    }
+
+    private void recover(UserPrincipal owner) {
+        File[] files = spoolDirectory.listFiles(new FilenameFilter() {
+            public boolean accept(File dir, String name) {
+                return name.endsWith(SPOOL_SUFFIX);
+            }
+        });
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        Arrays.sort(files);
+        for (File file : files) {
+            try {
+                Path path = file.toPath();
+                if (!Files.isRegularFile(path, LinkOption.NOFOLLOW_LINKS)
+                        || !owner.equals(Files.getOwner(path, LinkOption.NOFOLLOW_LINKS))) {
+                    log.warn("Ignoring spooled mail " + file + " not written by this application");
+                    continue;
+                }
+
+                Properties properties = new Properties();
+                Reader in = new InputStreamReader(new FileInputStream(file), ENCODING);
+                try {
+                    properties.load(in);
+                } finally {
+                    in.close();
+                }
+                SimpleMailMessage message = toMessage(properties);
+                pending.incrementAndGet();
+                queue.offer(new QueuedMail(message, file));
+            } catch (Exception e) {
+                log.error("Could not read spooled mail " + file + ": " + e.getMessage());
+                file.renameTo(new File(spoolDirectory, file.getName() + FAILED_SUFFIX));
+            }
+        }
+        log.info("Recovered " + pending.get() + " spooled mail message(s) from " + spoolDirectory);
+    }
+
+    private static Properties toProperties(SimpleMailMessage message) {
+        Properties properties = new Properties();
+        setProperty(properties, "from", message.getFrom());
+        setProperty(properties, "replyTo", message.getReplyTo());
+        setProperties(properties, "to", message.getTo());
+        setProperties(properties, "cc", message.getCc());
+        setProperties(properties, "bcc", message.getBcc());
+        if (message.getSentDate() != null) {
+            properties.setProperty("sentDate", String.valueOf(message.getSentDate().getTime()));
+        }
+        setProperty(properties, "subject", message.getSubject());
+        setProperty(properties, "text", message.getText());
+        return properties;
+    }
+
+    private static SimpleMailMessage toMessage(Properties properties) throws IOException {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom(properties.getProperty("from"));
+        message.setReplyTo(properties.getProperty("replyTo"));
+        message.setTo(getProperties(properties, "to"));
+        message.setCc(getProperties(properties, "cc"));
+        message.setBcc(getProperties(properties, "bcc"));
+        String sentDate = properties.getProperty("sentDate");
+        if (sentDate != null) {
+            message.setSentDate(new Date(Long.parseLong(sentDate)));
+        }
+        message.setSubject(properties.getProperty("subject"));
+        message.setText(properties.getProperty("text"));
+
+        if (message.getTo() == null && message.getCc() == null && message.getBcc() == null) {
+            throw new IOException("no recipients");
+        }
+        return message;
+    }
+
+    private static void setProperty(Properties properties, String key, String value) {
+        if (value != null) {
+            properties.setProperty(key, value);
+        }
+    }
+
+    private static void setProperties(Properties properties, String key, String[] values) {
+        if (values != null) {
+            for (int i = 0; i < values.length; i++) {
+                properties.setProperty(key + "." + i, values[i]);
+            }
+        }
+    }
+
+    private static String[] getProperties(Properties properties, String key) {
+        List<String> values = new ArrayList<String>();
+        String value;
+        while ((value = properties.getProperty(key + "." + values.size())) != null) {
+            values.add(value);
+        }
+        return values.isEmpty() ? null : values.toArray(new String[values.size()]);
+    }
+
+    private class Worker implements Runnable {
+        public void run() {
+            List<QueuedMail> batch = new ArrayList<QueuedMail>(batchSize);
+            while (running) {
+                try {
+                    batch.add(queue.take());
+                } catch (InterruptedException e) {
+                    return;
+                }
+                queue.drainTo(batch, batchSize - 1);
+                send(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private static final class QueuedMail implements Delayed {
+        private final SimpleMailMessage message;
+        private final File spoolFile;
+        private int attempts;
+        private volatile long dueAt = System.nanoTime();
+
+        private QueuedMail(SimpleMailMessage message, File spoolFile) {
+            this.message = message;
+            this.spoolFile = spoolFile;
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            long diff = dueAt - ((QueuedMail) other).dueAt;
+            return diff < 0 ? -1 : (diff > 0 ? 1 : 0);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package org.appfuse.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.velocity.Template;
+import org.apache.velocity.VelocityContext;
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.apache.velocity.exception.VelocityException;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Renders Velocity mail templates from parsed templates cached per name and locale, so
+ * sending many messages doesn't look up and parse the same template each time.
+ * <p/>
+ * For a locale such as fr_CA, <code>accountCreated_fr_CA.vm</code>,
+ * <code>accountCreated_fr.vm</code> and <code>accountCreated.vm</code> are tried in
+ * that order, and the first one found is cached. Locales the JDK has no data for share
+ * the cached template of their language, or the default one, so requests can't grow the
+ * cache with made-up locales. The names set with
+ * {@link #setTemplateNames} are parsed at startup for the default locale.
+ */
+public class MailTemplateRenderer implements InitializingBean {
+    private static final String TEMPLATE_SUFFIX = ".vm";
+    private static final int MAX_BUFFER_SIZE = 64 * 1024;
+    private static final Set<Locale> AVAILABLE_LOCALES =
+            new HashSet<Locale>(Arrays.asList(Locale.getAvailableLocales()));
+
+    private final Log log = LogFactory.getLog(MailTemplateRenderer.class);
+    private final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<String, Template>();
+    private final AtomicLong renderCount = new AtomicLong();
+    private final AtomicLong renderNanos = new AtomicLong();
+    private final AtomicLong maxRenderNanos = new AtomicLong();
+    private final ThreadLocal<StringWriter> buffers = new ThreadLocal<StringWriter>() {
+        @Override
+        protected StringWriter initialValue() {
+            return new StringWriter(1024);
+        }
+    };
+
+    private VelocityEngine velocityEngine;
+    private String encoding = "UTF-8";
+    private List<String> templateNames = Collections.emptyList();
+
+    public void setVelocityEngine(VelocityEngine velocityEngine) {
+        this.velocityEngine = velocityEngine;
+    }
+
+    /**
+     * Encoding of the template files (default UTF-8).
+     *
+     * @param encoding the template encoding
+     */
+    public void setEncoding(String encoding) {
+        this.encoding = encoding;
+    }
+
+    /**
+     * Templates to parse at startup, e.g. "accountCreated.vm".
+     *
+     * @param templateNames classpath-relative template names
+     */
+    public void setTemplateNames(List<String> templateNames) {
+        this.templateNames = new ArrayList<String>(templateNames);
+    }
+
+    public void afterPropertiesSet() {
+        if (velocityEngine == null) {
+            throw new IllegalArgumentException("Property 'velocityEngine' is required");
+        }
+        for (String templateName : templateNames) {
+            try {
+                getTemplate(templateName, Locale.getDefault());
+            } catch (ResourceNotFoundException e) {
+                log.warn("Mail template '" + templateName + "' not found, it will be looked up when first used");
+            }
+        }
+    }
+
+    /**
+     * Merges a template with a model.
+     *
+     * @param templateName the template to use (relative to classpath)
+     * @param locale the locale to find a template variant for, may be null
+     * @param model a map containing key/value pairs
+     * @return the rendered text
+     * @throws VelocityException if the template can't be found or rendered
+     */
+    @SuppressWarnings("unchecked")
+    public String render(String templateName, Locale locale, Map model) throws VelocityException {
+        long start = System.nanoTime();
+        Template template = getTemplate(templateName, locale);
+
+        StringWriter writer = buffers.get();
+        writer.getBuffer().setLength(0);
+        template.merge(new VelocityContext(model), writer);
+        String result = writer.toString();
+        if (writer.getBuffer().capacity() > MAX_BUFFER_SIZE) {
+            // don't keep an unusually large message's buffer around
+            buffers.remove();
+        }
+
+        recordRenderTime(System.nanoTime() - start);
+        return result;
+    }
+
+    /**
+     * Drops all cached templates, so they are parsed again when next used.
+     */
+    public void clearCache() {
+        templates.clear();
+    }
+
+    /**
+     * @return the number of templates rendered
+     */
+    public long getRenderCount() {
+        return renderCount.get();
+    }
+
+    /**
+     * @return the average time spent rendering a template, in microseconds
+     */
+    public long getAverageRenderMicros() {
+        long count = renderCount.get();
+        return count == 0 ? 0 : renderNanos.get() / count / 1000;
+    }
+
+    /**
+     * @return the longest time spent rendering a template, in microseconds
+     */
+    public long getMaxRenderMicros() {
+        return maxRenderNanos.get() / 1000;
+    }
+
+    private Template getTemplate(String templateName, Locale requested) {
+        Locale locale = normalize(requested);
+        String key = (locale == null) ? templateName : templateName + '|' + locale;
+        Template template = templates.get(key);
+        if (template == null) {
+            template = loadTemplate(templateName, locale);
+            Template existing = templates.putIfAbsent(key, template);
+            if (existing != null) {
+                template = existing;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Maps a locale to one the JDK has data for, as only the language and country pick
+     * a template variant: an unknown country falls back to the language, and an unknown
+     * language to null, the default template.
+     */
+    private static Locale normalize(Locale locale) {
+        if (locale == null) {
+            return null;
+        }
+        Locale languageAndCountry = new Locale(locale.getLanguage(), locale.getCountry());
+        if (AVAILABLE_LOCALES.contains(languageAndCountry)) {
+            return languageAndCountry;
+        }
+        Locale language = new Locale(locale.getLanguage());
+        return AVAILABLE_LOCALES.contains(language) ? language : null;
+    }
+
+    private Template loadTemplate(String templateName, Locale locale) {
+        if (locale != null && templateName.endsWith(TEMPLATE_SUFFIX)) {
+            String baseName = templateName.substring(0, templateName.length() - TEMPLATE_SUFFIX.length());
+            List<String> candidates = new ArrayList<String>(2);
+            if (locale.getCountry().length() > 0) {
+                candidates.add(baseName + '_' + locale.getLanguage() + '_' + locale.getCountry() + TEMPLATE_SUFFIX);
+            }
+            if (locale.getLanguage().length() > 0) {
+                candidates.add(baseName + '_' + locale.getLanguage() + TEMPLATE_SUFFIX);
+            }
+            for (String candidate : candidates) {
+                if (velocityEngine.resourceExists(candidate)) {
+                    return velocityEngine.getTemplate(candidate, encoding);
+                }
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Parsing mail template '" + templateName + "' for locale " + locale);
+        }
+        return velocityEngine.getTemplate(templateName, encoding);
+    }
+
+    private void recordRenderTime(long nanos) {
+        renderCount.incrementAndGet();
+        renderNanos.addAndGet(nanos);
+        long max = maxRenderNanos.get();
+        while (nanos > max && !maxRenderNanos.compareAndSet(max, nanos)) {
+            max = maxRenderNanos.get();
+        }
+    }
+}
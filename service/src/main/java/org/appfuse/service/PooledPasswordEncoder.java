@@ -0,0 +1,255 @@
+package org.appfuse.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BCrypt PasswordEncoder that hashes on a fixed-size pool of threads, so a burst of
+ * logins can only keep <code>poolSize</code> CPUs busy instead of every request thread.
+ * When the pool's queue is full, or a hash waits longer than <code>maxWaitMillis</code>,
+ * a {@link TaskRejectedException} is thrown right away rather than piling up requests.
+ * <p/>
+ * Unless <code>strength</code> is set, the BCrypt cost is calibrated at startup to the
+ * highest value that hashes within <code>targetMillis</code> on this machine, between
+ * <code>minStrength</code> and <code>maxStrength</code>. Hashes made at a lower cost
+ * still match; {@link #needsRehash} tells whether one should be replaced.
+ */
+public class PooledPasswordEncoder implements PasswordEncoder, InitializingBean, DisposableBean {
+    private final Log log = LogFactory.getLog(PooledPasswordEncoder.class);
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    private int poolSize = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 100;
+    private long maxWaitMillis = 10000;
+    private int strength;
+    private int minStrength = 10;
+    private int maxStrength = 14;
+    private long targetMillis = 100;
+
+    private BCryptPasswordEncoder encoder;
+    private ThreadPoolExecutor executor;
+
+    /**
+     * Number of threads hashing passwords (default the number of processors).
+     *
+     * @param poolSize the number of threads
+     */
+    public void setPoolSize(int poolSize) {
+        this.poolSize = poolSize;
+    }
+
+    /**
+     * Number of hashes that may wait for a thread before new ones are rejected (default 100).
+     *
+     * @param queueCapacity the queue capacity
+     */
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * How long a caller waits for its hash before giving up (default 10 seconds).
+     *
+     * @param maxWaitMillis the maximum wait in milliseconds
+     */
+    public void setMaxWaitMillis(long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+    }
+
+    /**
+     * Fixed BCrypt cost (4-31). If not set, the cost is calibrated at startup.
+     *
+     * @param strength the log rounds to use
+     */
+    public void setStrength(int strength) {
+        this.strength = strength;
+    }
+
+    /**
+     * Lowest cost calibration may pick (default 10, BCryptPasswordEncoder's default).
+     *
+     * @param minStrength the minimum log rounds
+     */
+    public void setMinStrength(int minStrength) {
+        this.minStrength = minStrength;
+    }
+
+    /**
+     * Highest cost calibration may pick (default 14).
+     *
+     * @param maxStrength the maximum log rounds
+     */
+    public void setMaxStrength(int maxStrength) {
+        this.maxStrength = maxStrength;
+    }
+
+    /**
+     * Time one hash should take at the calibrated cost (default 100 ms).
+     *
+     * @param targetMillis the target in milliseconds
+     */
+    public void setTargetMillis(long targetMillis) {
+        this.targetMillis = targetMillis;
+    }
+
+    public void afterPropertiesSet() {
+        if (strength == 0) {
+            strength = calibrate();
+        }
+        encoder = new BCryptPasswordEncoder(strength);
+
+        final AtomicInteger threadNumber = new AtomicInteger();
+        executor = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(queueCapacity), new ThreadFactory() {
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "password-encoder-" + threadNumber.getAndIncrement());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        log.info("Hashing passwords with BCrypt strength " + strength + " on " + poolSize + " thread(s)");
+    }
+
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public String encode(final CharSequence rawPassword) {
+        return execute(new Callable<String>() {
+            public String call() {
+                return encoder.encode(rawPassword);
+            }
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean matches(final CharSequence rawPassword, final String encodedPassword) {
+        return execute(new Callable<Boolean>() {
+            public Boolean call() {
+                return encoder.matches(rawPassword, encodedPassword);
+            }
+        });
+    }
+
+    /**
+     * Tells whether a hash was made at a lower cost than the current one, so that it
+     * should be replaced the next time the raw password is known.
+     *
+     * @param encodedPassword a BCrypt hash, such as "$2a$10$..."
+     * @return true if the hash should be replaced
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$') {
+            return false;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6)) < strength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    /**
+     * @return the number of hashes waiting for a thread
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * @return the number of threads hashing right now
+     */
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    public long getCompletedCount() {
+        return executor.getCompletedTaskCount();
+    }
+
+    /**
+     * @return the number of hashes rejected because the pool was overloaded
+     */
+    public long getRejectedCount() {
+        return rejectedCount.get();
+    }
+
+    private <T> T execute(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCount.incrementAndGet();
+            throw new TaskRejectedException("Password encoder is overloaded, " + getQueueDepth() + " hashes queued");
+        }
+
+        try {
+            return future.get(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCount.incrementAndGet();
+            throw new TaskRejectedException("Password hash not done within " + maxWaitMillis + " ms");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new TaskRejectedException("Interrupted while waiting for password hash", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Times a hash at minStrength and doubles the estimate per extra round of cost
+     * until the next one would go over targetMillis.
+     */
+    private int calibrate() {
+        long nanos = Long.MAX_VALUE;
+        for (int i = 0; i < 3; i++) {
+            long start = System.nanoTime();
+            BCrypt.hashpw("calibration", BCrypt.gensalt(minStrength));
+            nanos = Math.min(nanos, System.nanoTime() - start);
+        }
+
+        long targetNanos = TimeUnit.MILLISECONDS.toNanos(targetMillis);
+        int calibrated = minStrength;
+        while (calibrated < maxStrength && nanos * 2 <= targetNanos) {
+            nanos *= 2;
+            calibrated++;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Calibrated BCrypt strength " + calibrated + " (~" + TimeUnit.NANOSECONDS.toMillis(nanos)
+                    + " ms per hash, target " + targetMillis + " ms)");
+        }
+        return calibrated;
+    }
+}
@@ -0,0 +1,102 @@
+package org.appfuse.service;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.appfuse.dao.UserDao;
+import org.appfuse.model.User;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.authentication.AuthenticationServiceException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * DaoAuthenticationProvider that upgrades a user's password hash after a successful
+ * login when it was made at a lower BCrypt cost than {@link PooledPasswordEncoder}
+ * currently uses. A login rejected because the encoder is overloaded fails with an
+ * {@link AuthenticationServiceException}, which shows up as a login error.
+ * <p/>
+ * The new hash is written straight through the {@link UserDao}, and only if the stored
+ * hash is still the one the password was just checked against. There is deliberately no
+ * service method for this, so nothing else can set a password without going through
+ * UserManager's saveUser.
+ * <p/>
+ * To use it, reference it from security.xml:
+ * <pre>
+ *      &lt;authentication-manager&gt;
+ *          &lt;authentication-provider ref="authenticationProvider"/&gt;
+ *      &lt;/authentication-manager&gt;
+ * </pre>
+ */
+public class RehashingAuthenticationProvider extends DaoAuthenticationProvider {
+    private final Log log = LogFactory.getLog(RehashingAuthenticationProvider.class);
+    private PooledPasswordEncoder pooledPasswordEncoder;
+    private UserDao userDao;
+    private TransactionTemplate transactionTemplate;
+
+    @Override
+    public void setPasswordEncoder(Object passwordEncoder) {
+        super.setPasswordEncoder(passwordEncoder);
+        this.pooledPasswordEncoder =
+                (passwordEncoder instanceof PooledPasswordEncoder) ? (PooledPasswordEncoder) passwordEncoder : null;
+    }
+
+    public void setUserDao(UserDao userDao) {
+        this.userDao = userDao;
+    }
+
+    public void setTransactionManager(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication)
+            throws AuthenticationException {
+        try {
+            super.additionalAuthenticationChecks(userDetails, authentication);
+        } catch (TaskRejectedException e) {
+            throw new AuthenticationServiceException(e.getMessage(), e);
+        }
+
+        if (pooledPasswordEncoder != null && userDao != null && transactionTemplate != null
+                && userDetails instanceof User && pooledPasswordEncoder.needsRehash(userDetails.getPassword())) {
+            User user = (User) userDetails;
+            try {
+                rehash(user, authentication.getCredentials().toString());
+                if (log.isDebugEnabled()) {
+                    log.debug("Rehashed password of user '" + user.getUsername() + "' at strength "
+                            + pooledPasswordEncoder.getStrength());
+                }
+            } catch (RuntimeException e) {
+                // the login itself succeeded; the hash is upgraded on a later login
+                log.warn("Could not rehash password of user '" + user.getUsername() + "': " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Replaces the hash that was just checked with one made at the current cost.
+     */
+    private void rehash(final User user, final String rawPassword) {
+        final String checkedHash = user.getPassword();
+        final String newHash = pooledPasswordEncoder.encode(rawPassword);
+        transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                User stored = userDao.get(user.getId());
+                // the password may have been changed since it was checked
+                if (checkedHash.equals(stored.getPassword())) {
+                    stored.setPassword(newHash);
+                    userDao.saveUser(stored);
+                }
+            }
+        });
+        getUserCache().removeUserFromCache(user.getUsername());
+    }
+}
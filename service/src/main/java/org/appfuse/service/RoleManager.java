@@ -30,4 +30,18 @@ public interface RoleManager extends GenericManager<Role, Long> {
      * {@inheritDoc}
      */
     void removeRole(String rolename);
+
+    /**
+     * Gets all roles from memory, loading them from the database the first time and
+     * again after a role has been saved or removed.
+     * @return the current roles
+     */
+    RoleRegistry getRoleRegistry();
+
+    /**
+     * Loads the roles from the database again, e.g. after they were changed outside
+     * of this manager.
+     * @return the reloaded roles
+     */
+    RoleRegistry reloadRoles();
 }
@@ -0,0 +1,89 @@
+package org.appfuse.service;
+
+import org.appfuse.model.LabelValue;
+import org.appfuse.model.Role;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable snapshot of all roles, looked up by name or id without going to the
+ * database. Roles handed out are copies, so callers may attach them to users or change
+ * them without affecting the snapshot. RoleManager builds a new one when roles change.
+ */
+public final class RoleRegistry {
+    private final List<Role> roles;
+    private final Map<String, Role> rolesByName;
+    private final Map<Long, Role> rolesById;
+    private final List<LabelValue> labelValues;
+
+    /**
+     * @param roles all roles, in the order they should be listed
+     */
+    public RoleRegistry(List<Role> roles) {
+        List<Role> snapshot = new ArrayList<Role>(roles.size());
+        Map<String, Role> byName = new HashMap<String, Role>();
+        Map<Long, Role> byId = new HashMap<Long, Role>();
+        List<LabelValue> labels = new ArrayList<LabelValue>(roles.size());
+        for (Role role : roles) {
+            Role copy = copy(role);
+            snapshot.add(copy);
+            byName.put(copy.getName(), copy);
+            if (copy.getId() != null) {
+                byId.put(copy.getId(), copy);
+            }
+            labels.add(new LabelValue(copy.getName(), copy.getName()));
+        }
+        this.roles = snapshot;
+        this.rolesByName = byName;
+        this.rolesById = byId;
+        this.labelValues = Collections.unmodifiableList(labels);
+    }
+
+    /**
+     * @param name the role's name
+     * @return a copy of the role, or null if there's no such role
+     */
+    public Role getRole(String name) {
+        return copy(rolesByName.get(name));
+    }
+
+    /**
+     * @param id the role's id
+     * @return a copy of the role, or null if there's no such role
+     */
+    public Role getRole(Long id) {
+        return copy(rolesById.get(id));
+    }
+
+    /**
+     * @return copies of all roles
+     */
+    public List<Role> getRoles() {
+        List<Role> copies = new ArrayList<Role>(roles.size());
+        for (Role role : roles) {
+            copies.add(copy(role));
+        }
+        return copies;
+    }
+
+    /**
+     * @return the role names as an unmodifiable list of label/value pairs, for drop-downs
+     */
+    public List<LabelValue> getLabelValues() {
+        return labelValues;
+    }
+
+    private static Role copy(Role role) {
+        if (role == null) {
+            return null;
+        }
+        Role copy = new Role(role.getName());
+        copy.setId(role.getId());
+        copy.setDescription(role.getDescription());
+        return copy;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -126,6 +127,19 @@ public interface UserManager extends GenericManager<User, Long> {
      */
     void sendPasswordRecoveryEmail(String username, String urlTemplate);
 
+    /**
+     * Sends an e-mail to every user, e.g. about a policy change. Returns right away;
+     * users are read from the database a page at a time, each page in its own short
+     * transaction, and messages are rendered and sent in the background at a limited
+     * rate, so other mail isn't held up.
+     *
+     * @param subject the subject of the e-mail
+     * @param templateName the Velocity template to use (relative to classpath)
+     * @param model key/value pairs for the template; "user" is set to each recipient
+     * @return the mailing, to follow the number of messages sent and failed or wait for it
+     */
+    BulkMail sendBulkEmail(String subject, String templateName, Map<String, Object> model);
+
     /**
      * 
      * @param username
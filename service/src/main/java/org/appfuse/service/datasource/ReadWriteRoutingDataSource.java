@@ -0,0 +1,129 @@
+package org.appfuse.service.datasource;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * DataSource that sends connections for read-only transactions to a replica and
+ * everything else to the primary database. Replicas are used round-robin; one that
+ * fails to hand out a connection is skipped for <code>retryInterval</code> milliseconds,
+ * and when none are available the primary is used.
+ * <p/>
+ * The read-only flag is only known once the transaction has started, so this must be
+ * wrapped in a {@link LazyConnectionDataSourceProxy} that defers fetching the real
+ * connection until the first statement:
+ * <pre>
+ *      &lt;bean id="dataSource" class="org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy"&gt;
+ *          &lt;property name="targetDataSource"&gt;
+ *              &lt;bean class="org.appfuse.service.datasource.ReadWriteRoutingDataSource"&gt;
+ *                  &lt;property name="primary" ref="primaryDataSource"/&gt;
+ *                  &lt;property name="replicas" ref="replicaDataSources"/&gt;
+ *              &lt;/bean&gt;
+ *          &lt;/property&gt;
+ *      &lt;/bean&gt;
+ * </pre>
+ * Replicas are usually a little behind the primary, so only mark transactions read-only
+ * when slightly stale data is acceptable.
+ */
+public class ReadWriteRoutingDataSource extends AbstractDataSource implements InitializingBean {
+    private final Log log = LogFactory.getLog(ReadWriteRoutingDataSource.class);
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private DataSource primary;
+    private List<DataSource> replicas = Collections.emptyList();
+    private long retryInterval = 30000;
+    private AtomicLongArray replicaDownUntil;
+
+    /**
+     * The database used for writes, and for reads when no replica is available.
+     *
+     * @param primary the primary DataSource
+     */
+    public void setPrimary(DataSource primary) {
+        this.primary = primary;
+    }
+
+    /**
+     * Databases used for read-only transactions. May be empty.
+     *
+     * @param replicas the replica DataSources
+     */
+    public void setReplicas(List<DataSource> replicas) {
+        this.replicas = new ArrayList<DataSource>(replicas);
+    }
+
+    /**
+     * How long a replica that failed is left out before it is tried again (default 30 seconds).
+     *
+     * @param retryInterval the interval in milliseconds
+     */
+    public void setRetryInterval(long retryInterval) {
+        this.retryInterval = retryInterval;
+    }
+
+    public void afterPropertiesSet() {
+        if (primary == null) {
+            throw new IllegalArgumentException("Property 'primary' is required");
+        }
+        replicaDownUntil = new AtomicLongArray(replicas.size());
+    }
+
+    public Connection getConnection() throws SQLException {
+        return getConnection(null, null);
+    }
+
+    public Connection getConnection(String username, String password) throws SQLException {
+        if (!replicas.isEmpty() && TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Connection con = getReplicaConnection(username, password);
+            if (con != null) {
+                return con;
+            }
+        }
+        return getConnection(primary, username, password);
+    }
+
+    /**
+     * Tries each replica once, starting with the next one in turn.
+     *
+     * @return a replica connection, or null if no replica is available
+     */
+    private Connection getReplicaConnection(String username, String password) {
+        int size = replicas.size();
+        int start = (nextReplica.getAndIncrement() & Integer.MAX_VALUE) % size;
+        for (int i = 0; i < size; i++) {
+            int index = (start + i) % size;
+            long now = System.currentTimeMillis();
+            if (replicaDownUntil.get(index) > now) {
+                continue;
+            }
+            try {
+                return getConnection(replicas.get(index), username, password);
+            } catch (SQLException e) {
+                replicaDownUntil.set(index, now + retryInterval);
+                log.warn("Replica " + index + " is unavailable, skipping it for " + retryInterval + " ms: "
+                        + e.getMessage());
+            }
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("No replica available, reading from the primary database");
+        }
+        return null;
+    }
+
+    private static Connection getConnection(DataSource dataSource, String username, String password)
+            throws SQLException {
+        return (username == null) ? dataSource.getConnection() : dataSource.getConnection(username, password);
+    }
+}
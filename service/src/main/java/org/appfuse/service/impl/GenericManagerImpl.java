@@ -3,6 +3,7 @@ package org.appfuse.service.impl;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.appfuse.dao.GenericDao;
+import org.appfuse.dao.ResultHandler;
 import org.appfuse.service.GenericManager;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -71,6 +72,27 @@ public class GenericManagerImpl<T, PK extends Serializable> implements GenericMa
         return dao.getAll();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public List<T> getAll(int firstResult, int maxResults, String sortProperty, boolean ascending) {
+        return dao.getAll(firstResult, maxResults, sortProperty, ascending);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long getCount() {
+        return dao.getCount();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void scrollAll(int fetchSize, ResultHandler<T> handler) {
+        dao.scrollAll(fetchSize, handler);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -120,6 +142,31 @@ public class GenericManagerImpl<T, PK extends Serializable> implements GenericMa
         return dao.search(q);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Paging and sorting are done by Hibernate Search, so only the requested page is loaded.
+     * The DAO checks the sort property the same way with or without a search term.
+     */
+    public List<T> search(String q, int firstResult, int maxResults, String sortProperty, boolean ascending) {
+        if (q == null || "".equals(q.trim())) {
+            return getAll(firstResult, maxResults, sortProperty, ascending);
+        }
+
+        return dao.search(q, firstResult, maxResults, sortProperty, ascending);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public long searchCount(String q) {
+        if (q == null || "".equals(q.trim())) {
+            return getCount();
+        }
+
+        return dao.searchCount(q);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -4,6 +4,7 @@ import org.appfuse.dao.LookupDao;
 import org.appfuse.model.LabelValue;
 import org.appfuse.model.Role;
 import org.appfuse.service.LookupManager;
+import org.appfuse.service.RoleManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -21,10 +22,17 @@ public class LookupManagerImpl implements LookupManager {
     @Autowired
     LookupDao dao;
 
+    @Autowired(required = false)
+    RoleManager roleManager;
+
     /**
      * {@inheritDoc}
      */
     public List<LabelValue> getAllRoles() {
+        if (roleManager != null) {
+            return roleManager.getRoleRegistry().getLabelValues();
+        }
+
         List<Role> roles = dao.getRoles();
         List<LabelValue> list = new ArrayList<LabelValue>();
 
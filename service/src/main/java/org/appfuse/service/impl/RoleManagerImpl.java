@@ -3,19 +3,27 @@ package org.appfuse.service.impl;
 import org.appfuse.dao.RoleDao;
 import org.appfuse.model.Role;
 import org.appfuse.service.RoleManager;
+import org.appfuse.service.RoleRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 
 /**
- * Implementation of RoleManager interface.
+ * Implementation of RoleManager interface. Roles are read from a {@link RoleRegistry}
+ * that is loaded on first use and rebuilt whenever a role is saved or removed.
  *
  * @author <a href="mailto:dan@getrolling.com">Dan Kibler</a>
  */
 @Service("roleManager")
 public class RoleManagerImpl extends GenericManagerImpl<Role, Long> implements RoleManager {
     RoleDao roleDao;
+    private volatile RoleRegistry registry;
 
     @Autowired
     public RoleManagerImpl(RoleDao roleDao) {
@@ -27,21 +35,23 @@ public class RoleManagerImpl extends GenericManagerImpl<Role, Long> implements R
      * {@inheritDoc}
      */
     public List<Role> getRoles(Role role) {
-        return dao.getAll();
+        return getRoleRegistry().getRoles();
     }
 
     /**
      * {@inheritDoc}
      */
     public Role getRole(String rolename) {
-        return roleDao.getRoleByName(rolename);
+        return getRoleRegistry().getRole(rolename);
     }
 
     /**
      * {@inheritDoc}
      */
     public Role saveRole(Role role) {
-        return dao.save(role);
+        Role saved = dao.save(role);
+        invalidate();
+        return saved;
     }
 
     /**
@@ -49,5 +59,93 @@ public class RoleManagerImpl extends GenericManagerImpl<Role, Long> implements R
      */
     public void removeRole(String rolename) {
         roleDao.removeRole(rolename);
+        invalidate();
     }
-}
\ No newline at end of file
+
+    /**
+     * {@inheritDoc}
+     */
+    public RoleRegistry getRoleRegistry() {
+        RoleRegistry roles = registry;
+        if (roles == null) {
+            roles = reloadRoles();
+        }
+        return roles;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public RoleRegistry reloadRoles() {
+        List<Role> roles = new ArrayList<Role>(dao.getAll());
+        Collections.sort(roles, new Comparator<Role>() {
+            public int compare(Role r1, Role r2) {
+                return r1.getName().compareTo(r2.getName());
+            }
+        });
+        RoleRegistry roleRegistry = new RoleRegistry(roles);
+        registry = roleRegistry;
+        log.debug("Loaded " + roles.size() + " roles");
+        return roleRegistry;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public List<Role> getAll() {
+        return getRoleRegistry().getRoles();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Served from the role registry; unknown ids are looked up in the database.
+     */
+    @Override
+    public Role get(Long id) {
+        Role role = getRoleRegistry().getRole(id);
+        return (role != null) ? role : super.get(id);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Role save(Role role) {
+        Role saved = super.save(role);
+        invalidate();
+        return saved;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(Role role) {
+        super.remove(role);
+        invalidate();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void remove(Long id) {
+        super.remove(id);
+        invalidate();
+    }
+
+    private void invalidate() {
+        registry = null;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // again after commit, in case another thread loaded the old roles in the meantime
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    registry = null;
+                }
+            });
+        }
+    }
+}
@@ -3,6 +3,8 @@ package org.appfuse.service.impl;
 import org.apache.commons.lang.StringUtils;
 import org.appfuse.dao.UserDao;
 import org.appfuse.model.User;
+import org.appfuse.service.BulkMail;
+import org.appfuse.service.ExpiringUserCache;
 import org.appfuse.service.MailEngine;
 import org.appfuse.service.UserExistsException;
 import org.appfuse.service.UserManager;
@@ -13,6 +15,12 @@ import org.springframework.mail.SimpleMailMessage;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.jws.WebService;
 import java.io.Serializable;
@@ -29,12 +37,16 @@ import java.util.Map;
 @Service("userManager")
 @WebService(serviceName = "UserService", endpointInterface = "org.appfuse.service.UserService")
 public class UserManagerImpl extends GenericManagerImpl<User, Long> implements UserManager, UserService {
+    private static final int BULK_PAGE_SIZE = 500;
+
     private PasswordEncoder passwordEncoder;
     private UserDao userDao;
 
     private MailEngine mailEngine;
     private SimpleMailMessage message;
     private PasswordTokenManager passwordTokenManager;
+    private ExpiringUserCache userCache;
+    private TransactionTemplate readOnlyTransaction;
 
     private String passwordRecoveryTemplate = "passwordRecovery.vm";
     private String passwordUpdatedTemplate = "passwordUpdated.vm";
@@ -67,6 +79,28 @@ public class UserManagerImpl extends GenericManagerImpl<User, Long> implements U
         this.passwordTokenManager = passwordTokenManager;
     }
 
+    /**
+     * Cache used for authentication, evicted whenever a user is saved or removed.
+     *
+     * @param userCache the authentication provider's user cache
+     */
+    @Autowired(required = false)
+    public void setUserCache(final ExpiringUserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    /**
+     * Used to read the recipients of a bulk mail a page at a time, each page in a
+     * short read-only transaction of its own.
+     *
+     * @param transactionManager the transaction manager of the userDao
+     */
+    @Autowired(required = false)
+    public void setTransactionManager(final PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
     /**
      * Velocity template name to send users a password recovery mail (default
      * passwordRecovery.vm).
@@ -123,6 +157,10 @@ public class UserManagerImpl extends GenericManagerImpl<User, Long> implements U
             if (user.getVersion() == null) {
                 // New user, always encrypt
                 passwordChanged = true;
+            } else if (user.getPasswordChanged() != null) {
+                // Existing user whose password was set again after it was loaded, so the
+                // user itself knows whether it changed and there's no need to ask the DB
+                passwordChanged = user.getPasswordChanged();
             } else {
                 // Existing user, check password in DB
                 final String currentPassword = userDao.getUserPassword(user.getId());
@@ -144,7 +182,13 @@ public class UserManagerImpl extends GenericManagerImpl<User, Long> implements U
         }
 
         try {
-            return userDao.saveUser(user);
+            final User saved = userDao.saveUser(user);
+            user.resetPasswordChanged();
+            if (saved != null) {
+                saved.resetPasswordChanged();
+            }
+            evictFromUserCache(user.getUsername(), saved != null ? saved.getId() : user.getId());
+            return saved;
         } catch (final Exception e) {
             e.printStackTrace();
             log.warn(e.getMessage());
@@ -159,6 +203,7 @@ public class UserManagerImpl extends GenericManagerImpl<User, Long> implements U
     public void removeUser(final User user) {
         log.debug("removing user: " + user);
         userDao.remove(user);
+        evictFromUserCache(user.getUsername(), user.getId());
     }
 
     /**
@@ -168,6 +213,35 @@ public class UserManagerImpl extends GenericManagerImpl<User, Long> implements U
     public void removeUser(final String userId) {
         log.debug("removing user: " + userId);
         userDao.remove(new Long(userId));
+        evictFromUserCache(null, new Long(userId));
+    }
+
+    /**
+     * Evicts a user now and again after the transaction commits, so that a login between
+     * the two can't cache the old row for the cache's whole time to live.
+     */
+    private void evictFromUserCache(final String username, final Long userId) {
+        if (userCache == null) {
+            return;
+        }
+        removeFromUserCache(username, userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    removeFromUserCache(username, userId);
+                }
+            });
+        }
+    }
+
+    private void removeFromUserCache(final String username, final Long userId) {
+        if (username != null) {
+            userCache.removeUserFromCache(username);
+        }
+        if (userId != null) {
+            userCache.removeUserFromCache(userId);
+        }
     }
 
     /**
@@ -231,6 +305,8 @@ public class UserManagerImpl extends GenericManagerImpl<User, Long> implements U
     }
 
     private void sendUserEmail(final User user, final String template, final String url, final String subject) {
+        // the injected message is shared by concurrent requests, so fill in a copy
+        final SimpleMailMessage message = new SimpleMailMessage(this.message);
         message.setTo(user.getFullName() + "<" + user.getEmail() + ">");
         message.setSubject(subject);
 
@@ -241,6 +317,61 @@ public class UserManagerImpl extends GenericManagerImpl<User, Long> implements U
         mailEngine.sendMessage(message, template, model);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public BulkMail sendBulkEmail(final String subject, final String templateName, final Map<String, Object> model) {
+        final SimpleMailMessage message = new SimpleMailMessage(this.message);
+        message.setSubject(subject);
+
+        final long count = inReadOnlyTransaction(new TransactionCallback<Long>() {
+            public Long doInTransaction(final TransactionStatus status) {
+                return userDao.getCount();
+            }
+        });
+        final BulkMail bulkMail = mailEngine.startBulkMail(message, templateName, count);
+
+        // adding recipients blocks while sending catches up, so it isn't done on the caller's thread
+        bulkMail.addAll(new Runnable() {
+            public void run() {
+                addAllUsers(bulkMail, model);
+            }
+        });
+        return bulkMail;
+    }
+
+    /**
+     * Adds every user to a bulk mail, a page at a time in id order. Each page is read in
+     * its own transaction, so no connection or cursor is held while adding waits for
+     * messages to be sent.
+     */
+    private void addAllUsers(final BulkMail bulkMail, final Map<String, Object> model) {
+        Long lastId = null;
+        while (true) {
+            final Long afterId = lastId;
+            final List<User> users = inReadOnlyTransaction(new TransactionCallback<List<User>>() {
+                public List<User> doInTransaction(final TransactionStatus status) {
+                    return userDao.getAllAfter(afterId, BULK_PAGE_SIZE);
+                }
+            });
+
+            for (final User user : users) {
+                final Map<String, Object> userModel = new HashMap<String, Object>(model);
+                userModel.put("user", user);
+                bulkMail.add(user.getFullName() + "<" + user.getEmail() + ">", userModel);
+            }
+            if (users.size() < BULK_PAGE_SIZE) {
+                return;
+            }
+            lastId = users.get(users.size() - 1).getId();
+        }
+    }
+
+    private <T> T inReadOnlyTransaction(final TransactionCallback<T> callback) {
+        return readOnlyTransaction != null ? readOnlyTransaction.execute(callback) : callback.doInTransaction(null);
+    }
+
     /**
      * {@inheritDoc}
      */
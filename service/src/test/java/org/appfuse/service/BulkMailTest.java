@@ -0,0 +1,150 @@
+package org.appfuse.service;
+
+import org.apache.velocity.app.VelocityEngine;
+import org.appfuse.model.User;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.MailSender;
+import org.springframework.mail.SimpleMailMessage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class BulkMailTest {
+    private final List<SimpleMailMessage> sent = new ArrayList<SimpleMailMessage>();
+    private MailEngine mailEngine;
+    private SimpleMailMessage message;
+
+    @Before
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("resource.loader", "class");
+        props.setProperty("class.resource.loader.class",
+                "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader");
+        VelocityEngine velocityEngine = new VelocityEngine(props);
+        velocityEngine.init();
+
+        mailEngine = new MailEngine();
+        mailEngine.setVelocityEngine(velocityEngine);
+        mailEngine.setFrom("test@appfuse.org");
+        mailEngine.setBulkBatchSize(10);
+        mailEngine.setBulkMessagesPerSecond(0);
+
+        message = new SimpleMailMessage();
+        message.setSubject("Policy change");
+    }
+
+    @Test
+    public void testSendToAllRecipients() throws Exception {
+        mailEngine.setMailSender(new RecordingMailSender(null));
+
+        BulkMail bulkMail = mailEngine.startBulkMail(message, "passwordUpdated.vm", 125);
+        addRecipients(bulkMail, 125);
+        bulkMail.finish();
+
+        assertTrue(bulkMail.isFinished());
+        assertEquals(125, bulkMail.getSentCount());
+        assertEquals(0, bulkMail.getFailedCount());
+        assertEquals(125, sent.size());
+
+        SimpleMailMessage first = sent.get(0);
+        assertEquals("Policy change", first.getSubject());
+        assertEquals("test@appfuse.org", first.getFrom());
+        assertTrue(first.getText().contains("http://localhost:8080"));
+        assertNull(message.getFrom());
+    }
+
+    @Test
+    public void testFailedMessagesAreCounted() throws Exception {
+        mailEngine.setMailSender(new RecordingMailSender("user7@appfuse.org"));
+
+        BulkMail bulkMail = mailEngine.startBulkMail(message, "passwordUpdated.vm", 20);
+        addRecipients(bulkMail, 20);
+        bulkMail.finish();
+
+        assertEquals(19, bulkMail.getSentCount());
+        assertEquals(1, bulkMail.getFailedCount());
+    }
+
+    @Test(timeout = 10000)
+    public void testUnexpectedSendErrorsDoNotStopTheMailing() throws Exception {
+        mailEngine.setMailSender(new RecordingMailSender(null) {
+            @Override
+            public void send(SimpleMailMessage[] simpleMessages) {
+                throw new IllegalStateException("Connection pool closed");
+            }
+        });
+
+        // many more messages than the queue holds, so this hangs if the senders stop taking them
+        BulkMail bulkMail = mailEngine.startBulkMail(message, "passwordUpdated.vm", 125);
+        addRecipients(bulkMail, 125);
+        bulkMail.finish();
+
+        assertEquals(0, bulkMail.getSentCount());
+        assertEquals(125, bulkMail.getFailedCount());
+    }
+
+    @Test
+    public void testAddAllFinishesInTheBackground() throws Exception {
+        mailEngine.setMailSender(new RecordingMailSender(null));
+
+        final BulkMail bulkMail = mailEngine.startBulkMail(message, "passwordUpdated.vm", 50);
+        bulkMail.addAll(new Runnable() {
+            public void run() {
+                addRecipients(bulkMail, 50);
+            }
+        });
+
+        assertTrue(bulkMail.awaitFinished(10, TimeUnit.SECONDS));
+        assertEquals(50, bulkMail.getSentCount());
+    }
+
+    private void addRecipients(BulkMail bulkMail, int count) {
+        for (int i = 0; i < count; i++) {
+            Map<String, Object> model = new HashMap<String, Object>();
+            model.put("user", new User("user" + i));
+            model.put("applicationURL", "http://localhost:8080");
+            bulkMail.add("user" + i + "@appfuse.org", model);
+        }
+    }
+
+    /**
+     * Keeps sent messages in a list, failing those addressed to failingAddress.
+     */
+    private class RecordingMailSender implements MailSender {
+        private final String failingAddress;
+
+        RecordingMailSender(String failingAddress) {
+            this.failingAddress = failingAddress;
+        }
+
+        public void send(SimpleMailMessage simpleMessage) throws MailException {
+            send(new SimpleMailMessage[] {simpleMessage});
+        }
+
+        public void send(SimpleMailMessage[] simpleMessages) throws MailException {
+            Map<Object, Exception> failed = new HashMap<Object, Exception>();
+            for (SimpleMailMessage simpleMessage : simpleMessages) {
+                if (Arrays.asList(simpleMessage.getTo()).contains(failingAddress)) {
+                    failed.put(simpleMessage, new IllegalStateException("Mailbox unavailable"));
+                } else {
+                    synchronized (sent) {
+                        sent.add(simpleMessage);
+                    }
+                }
+            }
+            if (!failed.isEmpty()) {
+                throw new MailSendException(failed);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package org.appfuse.service;
+
+import org.appfuse.model.User;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ExpiringUserCacheTest {
+    private ExpiringUserCache cache;
+    private User user;
+
+    @Before
+    public void setUp() {
+        user = new User("user");
+        user.setId(-1L);
+        cache = new ExpiringUserCache();
+    }
+
+    @Test
+    public void testRepeatLookupsAreCached() {
+        assertNull(cache.getUserFromCache("user"));
+        cache.putUserInCache(user);
+        assertSame(user, cache.getUserFromCache("user"));
+        assertSame(user, cache.getUserFromCache("user"));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(2 / 3d, cache.getHitRatio(), 0.001);
+    }
+
+    @Test
+    public void testEvictByUsernameAndId() {
+        cache.putUserInCache(user);
+        cache.removeUserFromCache("user");
+        assertNull(cache.getUserFromCache("user"));
+
+        cache.putUserInCache(user);
+        cache.removeUserFromCache(-1L);
+        assertNull(cache.getUserFromCache("user"));
+        assertEquals(0, cache.getHitCount());
+    }
+
+    @Test
+    public void testExpiredAndOverflowingEntriesAreDropped() {
+        cache.setTimeToLiveSeconds(0);
+        cache.putUserInCache(user);
+        assertNull(cache.getUserFromCache("user"));
+
+        cache.setTimeToLiveSeconds(300);
+        cache.setMaxSize(1);
+        cache.putUserInCache(user);
+        cache.putUserInCache(new User("admin"));
+
+        assertEquals(1, cache.getSize());
+        assertNull(cache.getUserFromCache("user"));
+    }
+}
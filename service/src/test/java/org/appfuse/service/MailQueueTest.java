@@ -0,0 +1,169 @@
+package org.appfuse.service;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.MailSender;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.subethamail.wiser.Wiser;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.*;
+
+public class MailQueueTest {
+    private Wiser wiser;
+    private JavaMailSenderImpl mailSender;
+    private File spoolDirectory;
+    private MailQueue mailQueue;
+
+    @Before
+    public void setUp() throws Exception {
+        // set the port to a random value so there's no conflicts between tests
+        int port = 2525 + (int) (Math.random() * 100);
+        wiser = new Wiser();
+        wiser.setPort(port);
+        wiser.start();
+
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(port);
+
+        spoolDirectory = File.createTempFile("mail-spool", "");
+        spoolDirectory.delete();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (mailQueue != null) {
+            mailQueue.destroy();
+        }
+        wiser.stop();
+        File[] files = spoolDirectory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        spoolDirectory.delete();
+    }
+
+    @Test
+    public void testQueuedMailIsSent() throws Exception {
+        mailQueue = createQueue(mailSender, 2);
+        for (int i = 0; i < 5; i++) {
+            mailQueue.enqueue(createMessage("queued " + i));
+        }
+
+        waitForQueue(mailQueue);
+        assertEquals(5, wiser.getMessages().size());
+        assertEquals(0, spoolDirectory.list().length);
+    }
+
+    @Test
+    public void testSpooledMailIsSentAfterRestart() throws Exception {
+        // no workers, so the message stays in the spool
+        MailQueue stopped = createQueue(mailSender, 0);
+        stopped.enqueue(createMessage("spooled"));
+        stopped.destroy();
+        File[] spooled = spoolDirectory.listFiles();
+        assertEquals(1, spooled.length);
+        assertEquals(0, wiser.getMessages().size());
+
+        // spooled as plain properties, not as a serialized object
+        Properties properties = new Properties();
+        Reader in = new InputStreamReader(new FileInputStream(spooled[0]), "UTF-8");
+        try {
+            properties.load(in);
+        } finally {
+            in.close();
+        }
+        assertEquals("spooled", properties.getProperty("subject"));
+        assertEquals("foo@bar.com", properties.getProperty("to.0"));
+        if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+            assertEquals(PosixFilePermissions.fromString("rw-------"),
+                    Files.getPosixFilePermissions(spooled[0].toPath()));
+        }
+
+        mailQueue = createQueue(mailSender, 1);
+        assertEquals(1, mailQueue.getPendingCount());
+        waitForQueue(mailQueue);
+
+        assertEquals(1, wiser.getMessages().size());
+        assertEquals("spooled", wiser.getMessages().get(0).getMimeMessage().getSubject());
+    }
+
+    @Test
+    public void testFailedMailIsRetried() throws Exception {
+        MailSender failing = mock(MailSender.class);
+        doThrow(new MailSendException("SMTP server is down")).doNothing()
+                .when(failing).send(any(SimpleMailMessage[].class));
+        mailQueue = createQueue(failing, 1);
+        mailQueue.enqueue(createMessage("retried"));
+
+        waitForQueue(mailQueue);
+        verify(failing, times(2)).send(any(SimpleMailMessage[].class));
+        assertEquals(0, spoolDirectory.list().length);
+    }
+
+    @Test
+    public void testSpoolDirectoryIsPrivate() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        mailQueue = createQueue(mailSender, 0);
+        assertEquals(PosixFilePermissions.fromString("rwx------"),
+                Files.getPosixFilePermissions(spoolDirectory.toPath()));
+    }
+
+    @Test
+    public void testSharedSpoolDirectoryIsNotUsed() throws Exception {
+        assumeTrue(FileSystems.getDefault().supportedFileAttributeViews().contains("posix"));
+        Files.createDirectory(spoolDirectory.toPath());
+        // other users can't write here, but they could read the messages
+        Files.setPosixFilePermissions(spoolDirectory.toPath(), PosixFilePermissions.fromString("rwxr-xr-x"));
+
+        mailQueue = createQueue(mailSender, 1);
+        mailQueue.enqueue(createMessage("in memory"));
+        assertEquals(0, spoolDirectory.list().length);
+
+        waitForQueue(mailQueue);
+        assertEquals(1, wiser.getMessages().size());
+    }
+
+    private MailQueue createQueue(MailSender sender, int workerCount) {
+        MailQueue queue = new MailQueue();
+        queue.setMailSender(sender);
+        queue.setWorkerCount(workerCount);
+        queue.setRetryDelay(10);
+        queue.setSpoolDirectory(spoolDirectory);
+        queue.afterPropertiesSet();
+        return queue;
+    }
+
+    private SimpleMailMessage createMessage(String subject) {
+        SimpleMailMessage message = new SimpleMailMessage();
+        message.setFrom("test@appfuse.org");
+        message.setTo("foo@bar.com");
+        message.setSubject(subject);
+        message.setText("Body of " + subject);
+        return message;
+    }
+
+    private void waitForQueue(MailQueue queue) throws InterruptedException {
+        long timeout = System.currentTimeMillis() + 10000;
+        while (queue.getPendingCount() > 0 && System.currentTimeMillis() < timeout) {
+            Thread.sleep(20);
+        }
+        assertEquals("mail still queued", 0, queue.getPendingCount());
+    }
+}
@@ -0,0 +1,89 @@
+package org.appfuse.service;
+
+import org.apache.velocity.app.VelocityEngine;
+import org.appfuse.model.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.ui.velocity.VelocityEngineUtils;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders {@link #messageCount} password recovery e-mails through VelocityEngineUtils (as MailEngine did
+ * before) and through {@link MailTemplateRenderer}. Run after <code>mvn test-compile</code> with:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.appfuse.service.MailTemplateBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class MailTemplateBenchmark {
+    private static final String TEMPLATE = "passwordRecovery.vm";
+
+    @Param("10000")
+    private int messageCount;
+
+    private VelocityEngine velocityEngine;
+    private MailTemplateRenderer renderer;
+    private Map<String, Object> model;
+
+    @Setup
+    public void setUp() throws Exception {
+        // the engine as configured before templates were cached
+        Properties props = new Properties();
+        props.setProperty("resource.loader", "class");
+        props.setProperty("class.resource.loader.class",
+                "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader");
+        velocityEngine = new VelocityEngine(props);
+        velocityEngine.init();
+
+        renderer = new MailTemplateRenderer();
+        renderer.setVelocityEngine(velocityEngine);
+        renderer.afterPropertiesSet();
+
+        model = new HashMap<String, Object>();
+        model.put("user", new User("benchuser"));
+        model.put("message", "/updatePassword?username=benchuser&token=0123456789abcdef");
+        model.put("applicationURL", "http://localhost:8080");
+    }
+
+    @Benchmark
+    public void velocityEngineUtils(Blackhole blackhole) {
+        for (int i = 0; i < messageCount; i++) {
+            blackhole.consume(VelocityEngineUtils.mergeTemplateIntoString(velocityEngine, TEMPLATE, "UTF-8", model));
+        }
+    }
+
+    @Benchmark
+    public void cachedTemplate(Blackhole blackhole) {
+        for (int i = 0; i < messageCount; i++) {
+            blackhole.consume(renderer.render(TEMPLATE, Locale.ENGLISH, model));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(MailTemplateBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,68 @@
+package org.appfuse.service;
+
+import org.apache.velocity.app.VelocityEngine;
+import org.apache.velocity.exception.ResourceNotFoundException;
+import org.appfuse.model.User;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import static org.junit.Assert.*;
+
+public class MailTemplateRendererTest {
+    private MailTemplateRenderer renderer;
+    private Map<String, Object> model;
+
+    @Before
+    public void setUp() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("resource.loader", "class");
+        props.setProperty("class.resource.loader.class",
+                "org.apache.velocity.runtime.resource.loader.ClasspathResourceLoader");
+        VelocityEngine velocityEngine = new VelocityEngine(props);
+        velocityEngine.init();
+
+        renderer = new MailTemplateRenderer();
+        renderer.setVelocityEngine(velocityEngine);
+        renderer.setTemplateNames(Arrays.asList("passwordRecovery.vm", "missing.vm"));
+        renderer.afterPropertiesSet();
+
+        model = new HashMap<String, Object>();
+        model.put("user", new User("tomcat"));
+        model.put("message", "/updatePassword?token=abc");
+        model.put("applicationURL", "http://localhost:8080");
+    }
+
+    @Test
+    public void testRender() {
+        String text = renderer.render("passwordRecovery.vm", Locale.ENGLISH, model);
+        assertTrue(text.contains("Url: http://localhost:8080/updatePassword?token=abc"));
+        assertTrue(text.contains("Username: tomcat"));
+
+        assertEquals(text, renderer.render("passwordRecovery.vm", Locale.ENGLISH, model));
+        assertEquals(2, renderer.getRenderCount());
+    }
+
+    @Test
+    public void testRenderLocalizedTemplate() {
+        assertTrue(renderer.render("passwordUpdated.vm", Locale.CANADA_FRENCH, model).startsWith("Votre mot de passe"));
+        assertTrue(renderer.render("passwordUpdated.vm", Locale.GERMAN, model).startsWith("Your password"));
+        assertTrue(renderer.render("passwordUpdated.vm", null, model).startsWith("Your password"));
+    }
+
+    @Test
+    public void testRenderUnknownLocale() {
+        assertTrue(renderer.render("passwordUpdated.vm", new Locale("fr", "ZZ"), model).startsWith("Votre mot de passe"));
+        assertTrue(renderer.render("passwordUpdated.vm", new Locale("xx", "YY", "Z"), model).startsWith("Your password"));
+    }
+
+    @Test(expected = ResourceNotFoundException.class)
+    public void testRenderMissingTemplate() {
+        renderer.render("missing.vm", Locale.ENGLISH, model);
+    }
+}
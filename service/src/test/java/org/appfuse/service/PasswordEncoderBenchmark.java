@@ -0,0 +1,82 @@
+package org.appfuse.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Login throughput with 32 concurrent "request threads" checking passwords, against a
+ * plain BCryptPasswordEncoder (hashing on every request thread) and against
+ * {@link PooledPasswordEncoder}. For the pooled encoder, logins shed because of overload
+ * count as completed operations, so also compare the rejected count printed at the end.
+ * Run after <code>mvn test-compile</code> with:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.appfuse.service.PasswordEncoderBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Threads(32)
+@Fork(1)
+public class PasswordEncoderBenchmark {
+    @Param("10")
+    private int strength;
+
+    private BCryptPasswordEncoder bcrypt;
+    private PooledPasswordEncoder pooled;
+    private String encoded;
+
+    @Setup
+    public void setUp() {
+        bcrypt = new BCryptPasswordEncoder(strength);
+        pooled = new PooledPasswordEncoder();
+        pooled.setStrength(strength);
+        pooled.afterPropertiesSet();
+        encoded = bcrypt.encode("tomcat");
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("Pooled encoder rejected " + pooled.getRejectedCount() + " login(s)");
+        pooled.destroy();
+    }
+
+    @Benchmark
+    public boolean loginOnRequestThreads() {
+        return bcrypt.matches("tomcat", encoded);
+    }
+
+    @Benchmark
+    public boolean loginOnPool() {
+        try {
+            return pooled.matches("tomcat", encoded);
+        } catch (TaskRejectedException e) {
+            return false;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(PasswordEncoderBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package org.appfuse.service;
+
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class PooledPasswordEncoderTest {
+    private PooledPasswordEncoder encoder;
+
+    @After
+    public void tearDown() {
+        if (encoder != null) {
+            encoder.destroy();
+        }
+    }
+
+    @Test
+    public void testEncodeAndMatch() {
+        encoder = createEncoder(4, 2, 10);
+
+        String encoded = encoder.encode("tomcat");
+        assertTrue(encoded.startsWith("$2a$04$"));
+        assertTrue(encoder.matches("tomcat", encoded));
+        assertFalse(encoder.matches("admin", encoded));
+        // hashes made at another cost still match
+        assertTrue(encoder.matches("tomcat", new BCryptPasswordEncoder(5).encode("tomcat")));
+    }
+
+    @Test
+    public void testNeedsRehash() {
+        encoder = createEncoder(6, 1, 10);
+
+        assertTrue(encoder.needsRehash(new BCryptPasswordEncoder(4).encode("tomcat")));
+        assertFalse(encoder.needsRehash(encoder.encode("tomcat")));
+        assertFalse(encoder.needsRehash(new BCryptPasswordEncoder(8).encode("tomcat")));
+        assertFalse(encoder.needsRehash("plaintext"));
+        assertFalse(encoder.needsRehash(null));
+    }
+
+    @Test
+    public void testCalibrationStaysInBounds() {
+        encoder = new PooledPasswordEncoder();
+        encoder.setMinStrength(4);
+        encoder.setMaxStrength(6);
+        encoder.setTargetMillis(10000);
+        encoder.afterPropertiesSet();
+
+        assertEquals(6, encoder.getStrength());
+    }
+
+    @Test
+    public void testOverloadIsRejected() throws Exception {
+        encoder = createEncoder(12, 1, 1);
+
+        final AtomicInteger rejected = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int i = 0; i < 6; i++) {
+            Thread thread = new Thread() {
+                public void run() {
+                    try {
+                        encoder.encode("tomcat");
+                    } catch (TaskRejectedException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            };
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(rejected.get() > 0);
+        assertEquals(rejected.get(), encoder.getRejectedCount());
+        assertEquals(0, encoder.getQueueDepth());
+    }
+
+    private PooledPasswordEncoder createEncoder(int strength, int poolSize, int queueCapacity) {
+        PooledPasswordEncoder pooled = new PooledPasswordEncoder();
+        pooled.setStrength(strength);
+        pooled.setPoolSize(poolSize);
+        pooled.setQueueCapacity(queueCapacity);
+        pooled.afterPropertiesSet();
+        return pooled;
+    }
+}
@@ -0,0 +1,76 @@
+package org.appfuse.service;
+
+import org.appfuse.dao.UserDao;
+import org.appfuse.model.User;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class RehashingAuthenticationProviderTest {
+    private PooledPasswordEncoder encoder;
+    private UserDetailsService userDetailsService;
+    private UserDao userDao;
+    private RehashingAuthenticationProvider provider;
+
+    @Before
+    public void setUp() {
+        encoder = new PooledPasswordEncoder();
+        encoder.setStrength(5);
+        encoder.setPoolSize(1);
+        encoder.afterPropertiesSet();
+
+        userDetailsService = mock(UserDetailsService.class);
+        userDao = mock(UserDao.class);
+        provider = new RehashingAuthenticationProvider();
+        provider.setUserDetailsService(userDetailsService);
+        provider.setPasswordEncoder(encoder);
+        provider.setUserDao(userDao);
+        provider.setTransactionManager(mock(PlatformTransactionManager.class));
+    }
+
+    @After
+    public void tearDown() {
+        encoder.destroy();
+    }
+
+    @Test
+    public void testWeakHashIsReplacedAfterLogin() {
+        User user = createUser(new BCryptPasswordEncoder(4).encode("tomcat"));
+        when(userDetailsService.loadUserByUsername("user")).thenReturn(user);
+        when(userDao.get(-1L)).thenReturn(createUser(user.getPassword()));
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user", "tomcat"));
+
+        ArgumentCaptor<User> saved = ArgumentCaptor.forClass(User.class);
+        verify(userDao).saveUser(saved.capture());
+        assertFalse(encoder.needsRehash(saved.getValue().getPassword()));
+        assertTrue(encoder.matches("tomcat", saved.getValue().getPassword()));
+    }
+
+    @Test
+    public void testPasswordChangedSinceLoginIsKept() {
+        User user = createUser(new BCryptPasswordEncoder(4).encode("tomcat"));
+        when(userDetailsService.loadUserByUsername("user")).thenReturn(user);
+        when(userDao.get(-1L)).thenReturn(createUser(encoder.encode("changed")));
+
+        provider.authenticate(new UsernamePasswordAuthenticationToken("user", "tomcat"));
+
+        verify(userDao, never()).saveUser(any(User.class));
+    }
+
+    private User createUser(String password) {
+        User user = new User("user");
+        user.setId(-1L);
+        user.setEnabled(true);
+        user.setPassword(password);
+        return user;
+    }
+}
@@ -3,11 +3,20 @@ package org.appfuse.service;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.appfuse.Constants;
+import org.appfuse.dao.UserDao;
 import org.appfuse.model.User;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.transaction.Transactional;
 import java.util.List;
@@ -21,6 +30,14 @@ public class UserManagerTest extends BaseManagerTestCase {
     private UserManager mgr;
     @Autowired
     private RoleManager roleManager;
+    @Autowired
+    private AuthenticationProvider authenticationProvider;
+    @Autowired
+    private UserDao userDao;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
 
     @Before
     public void before() throws Exception {
@@ -77,4 +94,42 @@ public class UserManagerTest extends BaseManagerTestCase {
         // don't assume exact number so tests can run in parallel
         assertFalse(found.isEmpty());
     }
+
+    @Test
+    public void testAuthenticateWithChangedPassword() throws Exception {
+        // the first login puts john in the user cache
+        authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("john", "broncos"));
+
+        User user = mgr.getUserByUsername("john");
+        user.setPassword("denver");
+        mgr.saveUser(user);
+
+        assertTrue(authenticationProvider.authenticate(
+                new UsernamePasswordAuthenticationToken("john", "denver")).isAuthenticated());
+        try {
+            authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("john", "broncos"));
+            fail("Expected BadCredentialsException for the old password");
+        } catch (BadCredentialsException e) {
+            log.debug("expected exception: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testAuthenticateWithPasswordChangedElsewhere() throws Exception {
+        // the first login puts john in the user cache
+        authenticationProvider.authenticate(new UsernamePasswordAuthenticationToken("john", "broncos"));
+
+        // e.g. on another node, so this node's cache is not evicted
+        final User user = mgr.getUserByUsername("john");
+        user.setPassword(passwordEncoder.encode("denver"));
+        new TransactionTemplate(transactionManager).execute(new TransactionCallbackWithoutResult() {
+            @Override
+            protected void doInTransactionWithoutResult(TransactionStatus status) {
+                userDao.saveUser(user);
+            }
+        });
+
+        assertTrue(authenticationProvider.authenticate(
+                new UsernamePasswordAuthenticationToken("john", "denver")).isAuthenticated());
+    }
 }
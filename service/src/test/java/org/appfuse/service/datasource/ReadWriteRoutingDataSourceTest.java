@@ -0,0 +1,80 @@
+package org.appfuse.service.datasource;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+public class ReadWriteRoutingDataSourceTest {
+    private DriverManagerDataSource primary;
+    private DriverManagerDataSource replica;
+
+    @Before
+    public void setUp() {
+        primary = createDatabase("primary");
+        replica = createDatabase("replica");
+    }
+
+    @Test
+    public void testReadOnlyTransactionUsesReplica() {
+        DataSource dataSource = createRoutingDataSource(replica);
+
+        assertEquals("replica", whoAmI(dataSource, true));
+        assertEquals("primary", whoAmI(dataSource, false));
+    }
+
+    @Test
+    public void testFallsBackToPrimaryWhenReplicaIsDown() {
+        DriverManagerDataSource down = new DriverManagerDataSource(
+                "jdbc:h2:mem:missing;IFEXISTS=TRUE", "sa", "");
+        DataSource dataSource = createRoutingDataSource(down);
+
+        assertEquals("primary", whoAmI(dataSource, true));
+        // still marked down, so the replica isn't retried
+        assertEquals("primary", whoAmI(dataSource, true));
+    }
+
+    private DriverManagerDataSource createDatabase(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table if not exists whoami (name varchar(20))");
+        jdbcTemplate.execute("delete from whoami");
+        jdbcTemplate.update("insert into whoami values (?)", name);
+        return dataSource;
+    }
+
+    private DataSource createRoutingDataSource(DataSource replicaDataSource) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource();
+        routing.setPrimary(primary);
+        routing.setReplicas(Arrays.asList(replicaDataSource));
+        routing.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setDefaultAutoCommit(true);
+        proxy.setTargetDataSource(routing);
+        proxy.afterPropertiesSet();
+        return proxy;
+    }
+
+    private String whoAmI(DataSource dataSource, boolean readOnly) {
+        final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        tx.setReadOnly(readOnly);
+        return tx.execute(new TransactionCallback<String>() {
+            public String doInTransaction(TransactionStatus status) {
+                return jdbcTemplate.queryForObject("select name from whoami", String.class);
+            }
+        });
+    }
+}
@@ -0,0 +1,67 @@
+package org.appfuse.service.impl;
+
+import org.appfuse.Constants;
+import org.appfuse.dao.RoleDao;
+import org.appfuse.model.Role;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static org.mockito.BDDMockito.*;
+
+public class RoleManagerImplTest extends BaseManagerMockTestCase {
+    @Mock
+    private RoleDao roleDao;
+
+    @InjectMocks
+    private RoleManagerImpl roleManager;
+
+    private Role userRole;
+
+    @Before
+    public void setUp() {
+        userRole = new Role(Constants.USER_ROLE);
+        userRole.setId(-1L);
+        Role adminRole = new Role(Constants.ADMIN_ROLE);
+        adminRole.setId(-2L);
+        given(roleDao.getAll()).willReturn(new ArrayList<Role>(Arrays.asList(userRole, adminRole)));
+    }
+
+    @Test
+    public void testRolesAreReadFromMemory() {
+        //when
+        Role role = roleManager.getRole(Constants.USER_ROLE);
+        Role byId = roleManager.get(-2L);
+        List<Role> roles = roleManager.getAll();
+
+        //then
+        assertEquals(userRole, role);
+        assertNotSame(userRole, role);
+        assertEquals(Constants.ADMIN_ROLE, byId.getName());
+        assertEquals(2, roles.size());
+        assertEquals(Constants.ADMIN_ROLE, roles.get(0).getName());
+        assertNull(roleManager.getRole("ROLE_UNKNOWN"));
+        verify(roleDao, times(1)).getAll();
+    }
+
+    @Test
+    public void testSaveRoleReloadsRoles() {
+        //given
+        roleManager.getRole(Constants.USER_ROLE);
+        Role role = new Role("ROLE_MANAGER");
+        given(roleDao.save(role)).willReturn(role);
+
+        //when
+        roleManager.saveRole(role);
+        roleManager.getRole(Constants.USER_ROLE);
+
+        //then
+        verify(roleDao, times(2)).getAll();
+    }
+}
@@ -5,13 +5,24 @@ import org.appfuse.dao.RoleDao;
 import org.appfuse.dao.UserDao;
 import org.appfuse.model.Role;
 import org.appfuse.model.User;
+import org.appfuse.service.BulkMail;
+import org.appfuse.service.MailEngine;
 import org.appfuse.service.UserExistsException;
 import org.junit.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import static org.junit.Assert.*;
 import static org.mockito.BDDMockito.*;
 
@@ -27,6 +38,9 @@ public class UserManagerImplTest extends BaseManagerMockTestCase {
     @Mock
     private PasswordTokenManager passwordTokenManager;
 
+    @Mock
+    private MailEngine mailEngine;
+
 
     @InjectMocks
     private UserManagerImpl userManager = new UserManagerImpl();
@@ -112,6 +126,67 @@ public class UserManagerImplTest extends BaseManagerMockTestCase {
         verify(userDao).remove(5L);
     }
 
+    @Test
+    public void testSaveUserWithoutReadingPassword() throws Exception {
+        //given a user loaded with its hash, which the form sets again
+        final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        userManager.setPasswordEncoder(bcrypt);
+        final String hash = bcrypt.encode("tomcat");
+
+        final User user = new User("tomcat");
+        user.setId(1L);
+        user.setVersion(1);
+        user.setPassword(hash);
+        user.setPassword(hash);
+        given(userDao.saveUser(user)).willReturn(user);
+
+        //when
+        userManager.saveUser(user);
+
+        //then the stored hash is kept
+        assertEquals(hash, user.getPassword());
+
+        //when a new password is set
+        user.setPassword("tomcat2");
+        userManager.saveUser(user);
+
+        //then it is hashed
+        assertTrue(bcrypt.matches("tomcat2", user.getPassword()));
+
+        //when the new password happens to look like a hash
+        final String typed = bcrypt.encode("other");
+        user.setPassword(typed);
+        userManager.saveUser(user);
+
+        //then it is hashed all the same
+        assertTrue(bcrypt.matches(typed, user.getPassword()));
+        verify(userDao, never()).getUserPassword(1L);
+    }
+
+    @Test
+    public void testSaveBoundUserComparesStoredPassword() throws Exception {
+        //given a new instance bound from a form, which can't tell whether its password changed
+        final BCryptPasswordEncoder bcrypt = new BCryptPasswordEncoder(4);
+        userManager.setPasswordEncoder(bcrypt);
+        final String hash = bcrypt.encode("tomcat");
+        final String typed = bcrypt.encode("other");
+
+        final User user = new User("tomcat");
+        user.setId(2L);
+        user.setVersion(1);
+        user.setPassword(typed);
+        assertNull(user.getPasswordChanged());
+        given(userDao.getUserPassword(2L)).willReturn(hash);
+        given(userDao.saveUser(user)).willReturn(user);
+
+        //when
+        userManager.saveUser(user);
+
+        //then the stored password decides, and a hash-like value is still a new password
+        assertTrue(bcrypt.matches(typed, user.getPassword()));
+        verify(userDao).getUserPassword(2L);
+    }
+
     @Test
     public void testUserExistsException() {
         // set expectations
@@ -129,4 +204,44 @@ public class UserManagerImplTest extends BaseManagerMockTestCase {
             assertNotNull(e);
         }
     }
+
+    @Test
+    public void testSendBulkEmailReadsUsersPageByPage() throws Exception {
+        //given
+        userManager.setMailMessage(new SimpleMailMessage());
+        given(userDao.getCount()).willReturn(501L);
+        given(userDao.getAllAfter(null, 500)).willReturn(createUsers(0, 500));
+        given(userDao.getAllAfter(499L, 500)).willReturn(createUsers(500, 1));
+
+        final BulkMail bulkMail = mock(BulkMail.class);
+        willAnswer(new Answer<Void>() {
+            public Void answer(final InvocationOnMock invocation) {
+                ((Runnable) invocation.getArguments()[0]).run();
+                return null;
+            }
+        }).given(bulkMail).addAll(any(Runnable.class));
+        given(mailEngine.startBulkMail(any(SimpleMailMessage.class), eq("accountCreated.vm"), eq(501L)))
+                .willReturn(bulkMail);
+
+        //when
+        final BulkMail returned = userManager.sendBulkEmail("News", "accountCreated.vm", new HashMap<String, Object>());
+
+        //then the users are handed to the mailing a page at a time, each page after the last id seen
+        assertSame(bulkMail, returned);
+        verify(bulkMail, times(501)).add(anyString(), any(Map.class));
+        verify(userDao, never()).getAllAfter(500L, 500);
+    }
+
+    private List<User> createUsers(final int first, final int count) {
+        final List<User> users = new ArrayList<User>();
+        for (int i = first; i < first + count; i++) {
+            final User user = new User("user" + i);
+            user.setId((long) i);
+            user.setFirstName("User");
+            user.setLastName(String.valueOf(i));
+            user.setEmail("user" + i + "@appfuse.org");
+            users.add(user);
+        }
+        return users;
+    }
 }
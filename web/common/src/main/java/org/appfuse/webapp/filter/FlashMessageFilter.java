@@ -0,0 +1,102 @@
+package org.appfuse.webapp.filter;
+
+import org.appfuse.webapp.util.FlashMessageStore;
+import org.appfuse.webapp.util.FlashMessages;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filter to carry success and error messages over a redirect without
+ * creating a session - see {@link FlashMessages}. Messages of a request
+ * that redirects are kept in memory under a token sent in a short-lived
+ * cookie, and put in the request the cookie comes back with.
+ * <p/>
+ * The "maxAge" (seconds, default 60) and "maxEntries" (default 10000)
+ * init-params configure how long, and how many requests', messages are kept.
+ */
+public class FlashMessageFilter extends OncePerRequestFilter {
+    private int maxAge = FlashMessageStore.DEFAULT_MAX_AGE;
+    private int maxEntries = FlashMessageStore.DEFAULT_MAX_ENTRIES;
+    private FlashMessageStore store;
+
+    public void setMaxAge(int maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    @Override
+    protected void initFilterBean() throws ServletException {
+        store = new FlashMessageStore(maxAge, maxEntries);
+    }
+
+    /**
+     * Puts the messages of the previous request in this one, and makes sure
+     * this request's messages are kept if it redirects.
+     *
+     * @param request  the current request
+     * @param response the current response
+     * @param chain    the chain
+     * @throws IOException      when something goes wrong
+     * @throws ServletException when a communication failure happens
+     */
+    public void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                 FilterChain chain)
+            throws IOException, ServletException {
+
+        final FlashMessages flash = new FlashMessages(store, request, response);
+
+        String token = getToken(request);
+        if (token != null) {
+            Map<String, List<String>> messages = store.take(token);
+            if (messages != null) {
+                flash.restore(messages);
+            }
+
+            // the messages are only for this request
+            Cookie cookie = new Cookie(FlashMessages.COOKIE_NAME, "");
+            cookie.setPath(FlashMessages.getCookiePath(request));
+            cookie.setMaxAge(0);
+            response.addCookie(cookie);
+        }
+
+        chain.doFilter(request, new HttpServletResponseWrapper(response) {
+            @Override
+            public void sendRedirect(String location) throws IOException {
+                flash.save();
+                super.sendRedirect(location);
+            }
+
+            @Override
+            public void setHeader(String name, String value) {
+                if ("Location".equalsIgnoreCase(name)) {
+                    flash.save();
+                }
+                super.setHeader(name, value);
+            }
+        });
+    }
+
+    private static String getToken(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies != null) {
+            for (Cookie cookie : cookies) {
+                if (FlashMessages.COOKIE_NAME.equals(cookie.getName())) {
+                    return cookie.getValue();
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,99 @@
+package org.appfuse.webapp.jsp;
+
+import javax.el.ArrayELResolver;
+import javax.el.BeanELResolver;
+import javax.el.CompositeELResolver;
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.ListELResolver;
+import javax.el.MapELResolver;
+import javax.el.ResourceBundleELResolver;
+import javax.servlet.jsp.JspContext;
+import java.beans.FeatureDescriptor;
+import java.util.Iterator;
+
+/**
+ * {@link javax.el.ELResolver} which escapes XML in String values, like
+ * {@link EscapeXmlELResolver}, but without going through the whole resolver
+ * chain a second time for every lookup. Properties are resolved with the
+ * standard JSP resolvers (maps, resource bundles, lists, arrays and beans) and
+ * top-level names with the page, request, session and application attributes.
+ * Strings with nothing to escape are returned as they are, without a copy.
+ * <p>
+ * Top-level names that only an application-registered resolver knows are left
+ * to that resolver, so they aren't escaped. Set the "escapeXmlResolver" context
+ * parameter to "chain" to use {@link EscapeXmlELResolver} instead (see
+ * {@link EscapeXmlELResolverListener}).
+ */
+public class DirectEscapeXmlELResolver extends ELResolver {
+    private final CompositeELResolver resolvers = new CompositeELResolver();
+
+    public DirectEscapeXmlELResolver() {
+        resolvers.add(new MapELResolver(true));
+        resolvers.add(new ResourceBundleELResolver());
+        resolvers.add(new ListELResolver(true));
+        resolvers.add(new ArrayELResolver(true));
+        resolvers.add(new BeanELResolver(true));
+    }
+
+    @Override
+    public Class<?> getCommonPropertyType(ELContext context, Object base) {
+        return null;
+    }
+
+    @Override
+    public Iterator<FeatureDescriptor> getFeatureDescriptors(
+            ELContext context, Object base) {
+        return null;
+    }
+
+    @Override
+    public Class<?> getType(ELContext context, Object base, Object property) {
+        return null;
+    }
+
+    @Override
+    public Object getValue(ELContext context, Object base, Object property) {
+        JspContext pageContext = (JspContext) context.getContext(JspContext.class);
+        if (pageContext == null) {
+            return null;
+        }
+        Boolean escapeXml = (Boolean) pageContext.getAttribute(EscapeXmlELResolver.ESCAPE_XML_ATTRIBUTE);
+        if (escapeXml != null && !escapeXml) {
+            return null;
+        }
+
+        Object value;
+        if (base == null) {
+            if (!(property instanceof String)) {
+                return null;
+            }
+            value = pageContext.findAttribute((String) property);
+            if (value == null) {
+                // not an attribute, so leave it to the resolvers after this one
+                return null;
+            }
+            context.setPropertyResolved(true);
+        } else {
+            value = resolvers.getValue(context, base, property);
+            if (!context.isPropertyResolved()) {
+                return null;
+            }
+        }
+
+        if (value instanceof String) {
+            value = EscapeXml.escape((String) value);
+        }
+        return value;
+    }
+
+    @Override
+    public boolean isReadOnly(ELContext context, Object base, Object property) {
+        return false;
+    }
+
+    @Override
+    public void setValue(ELContext context, Object base, Object property, Object value) {
+
+    }
+}
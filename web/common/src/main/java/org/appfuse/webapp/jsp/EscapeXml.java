@@ -52,41 +52,34 @@ public class EscapeXml {
     }
     
     /**
-     * Escape a string.
+     * Escape a string in a single pass. Nothing is allocated unless there is
+     * something to escape.
      * 
      * @param src
      *            the string to escape; must not be null
-     * @return the escaped string
+     * @return the escaped string, or <code>src</code> itself if it has no
+     *         characters to escape
      */
     public static String escape(String src) {
-        // first pass to determine the length of the buffer so we only allocate once
-        int length = 0;
-        for (int i = 0; i < src.length(); i++) {
-            char c = src.charAt(i);
-            String escape = getEscape(c);
-            if (escape != null) {
-                length += escape.length();
-            } else {
-                length += 1;
-            }
+        int length = src.length();
+        int i = 0;
+        while (i < length && getEscape(src.charAt(i)) == null) {
+            i++;
         }
-
-        // skip copy if no escaping is needed
-        if (length == src.length()) {
+        if (i == length) {
             return src;
         }
 
-        // second pass to build the escaped string
-        StringBuilder buf = new StringBuilder(length);
-        for (int i = 0; i < src.length(); i++) {
-            char c = src.charAt(i);
-            String escape = getEscape(c);
+        StringBuilder buf = new StringBuilder(length + 16);
+        int start = 0;
+        for (; i < length; i++) {
+            String escape = getEscape(src.charAt(i));
             if (escape != null) {
-                buf.append(escape);
-            } else {
-                buf.append(c);
+                buf.append(src, start, i).append(escape);
+                start = i + 1;
             }
         }
+        buf.append(src, start, length);
         return buf.toString();
     }
 }
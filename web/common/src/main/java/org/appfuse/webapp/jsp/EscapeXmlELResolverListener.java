@@ -24,14 +24,21 @@ SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 */
 package org.appfuse.webapp.jsp;
 
+import javax.el.ELResolver;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 import javax.servlet.jsp.JspFactory;
 
 /**
  * Registers ELResolver that escapes XML in EL expression String values.
+ * {@link DirectEscapeXmlELResolver} is used unless the "escapeXmlResolver"
+ * context parameter is "chain", which selects {@link EscapeXmlELResolver}.
  */
 public class EscapeXmlELResolverListener implements ServletContextListener {
+    /**
+     * Context parameter selecting the resolver, "direct" (the default) or "chain"
+     */
+    public static final String RESOLVER_PARAM = "escapeXmlResolver";
 
     public void contextInitialized(ServletContextEvent event) {
         // APF-1379: Prevent NPE when using Tomcat Maven Plugin
@@ -42,9 +49,16 @@ public class EscapeXmlELResolverListener implements ServletContextListener {
         }
         JspFactory.getDefaultFactory()
                 .getJspApplicationContext(event.getServletContext())
-                .addELResolver(new EscapeXmlELResolver());
+                .addELResolver(createResolver(event.getServletContext().getInitParameter(RESOLVER_PARAM)));
     }
 
     public void contextDestroyed(ServletContextEvent event) {
     }
+
+    static ELResolver createResolver(String type) {
+        if ("chain".equals(type)) {
+            return new EscapeXmlELResolver();
+        }
+        return new DirectEscapeXmlELResolver();
+    }
 }
@@ -0,0 +1,82 @@
+package org.appfuse.webapp.listener;
+
+import org.appfuse.model.User;
+
+import java.io.Serializable;
+
+/**
+ * What the active users screens show of a logged in user: a copy of a few of
+ * the user's properties, taken when the user logged in, rather than the
+ * <code>User</code> entity with its roles.
+ *
+ * @see ActiveUserRegistry
+ */
+public class ActiveUser implements Serializable {
+    private static final long serialVersionUID = 4383652935786349271L;
+
+    private final Long userId;
+    private final String username;
+    private final String firstName;
+    private final String lastName;
+    private final String fullName;
+    private final String email;
+    private final long loginTime;
+
+    public ActiveUser(User user, long loginTime) {
+        this.userId = user.getId();
+        this.username = user.getUsername();
+        this.firstName = user.getFirstName();
+        this.lastName = user.getLastName();
+        this.fullName = user.getFullName();
+        this.email = user.getEmail();
+        this.loginTime = loginTime;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getFirstName() {
+        return firstName;
+    }
+
+    public String getLastName() {
+        return lastName;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    /**
+     * @return when the user last logged in, in milliseconds since the epoch
+     */
+    public long getLoginTime() {
+        return loginTime;
+    }
+
+    /**
+     * @return a detached User holding this user's id, username, names and email
+     */
+    public User toUser() {
+        User user = new User(username);
+        user.setId(userId);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        user.setEmail(email);
+        return user;
+    }
+
+    @Override
+    public String toString() {
+        return username;
+    }
+}
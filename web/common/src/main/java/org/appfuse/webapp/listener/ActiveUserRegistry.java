@@ -0,0 +1,163 @@
+package org.appfuse.webapp.listener;
+
+import org.appfuse.model.User;
+
+import javax.servlet.ServletContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The users currently logged in, by username, as kept up to date by
+ * {@link UserCounterListener} and exposed in the servlet context as
+ * "activeUsers". Logins and logouts don't lock each other out, and the
+ * admin screens get sorted copies of the users to page through.
+ *
+ * @see ActiveUser
+ */
+public class ActiveUserRegistry {
+    /**
+     * Name of the registry in the ServletContext
+     */
+    public static final String REGISTRY_KEY = "activeUsers";
+
+    private static final Comparator<ActiveUser> BY_USERNAME = new Comparator<ActiveUser>() {
+        public int compare(ActiveUser lhs, ActiveUser rhs) {
+            return compareStrings(lhs.getUsername(), rhs.getUsername());
+        }
+    };
+
+    private static final Comparator<ActiveUser> BY_FULL_NAME = new Comparator<ActiveUser>() {
+        public int compare(ActiveUser lhs, ActiveUser rhs) {
+            int result = compareStrings(lhs.getFullName(), rhs.getFullName());
+            return (result != 0) ? result : BY_USERNAME.compare(lhs, rhs);
+        }
+    };
+
+    private static final Comparator<ActiveUser> BY_LOGIN_TIME = new Comparator<ActiveUser>() {
+        public int compare(ActiveUser lhs, ActiveUser rhs) {
+            int result = (lhs.getLoginTime() < rhs.getLoginTime()) ? -1
+                    : ((lhs.getLoginTime() == rhs.getLoginTime()) ? 0 : 1);
+            return (result != 0) ? result : BY_USERNAME.compare(lhs, rhs);
+        }
+    };
+
+    private final ConcurrentMap<String, ActiveUser> users = new ConcurrentHashMap<String, ActiveUser>();
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * Gets the registry of a web application.
+     *
+     * @param servletContext the web application's context
+     * @return the registry, or null if UserCounterListener isn't configured
+     */
+    public static ActiveUserRegistry getInstance(ServletContext servletContext) {
+        return (ActiveUserRegistry) servletContext.getAttribute(REGISTRY_KEY);
+    }
+
+    /**
+     * Adds a user who logged in, or records the time of their latest
+     * login if they are already logged in.
+     *
+     * @param user the user
+     * @return true if the user wasn't logged in yet
+     */
+    public boolean register(User user) {
+        if (user.getUsername() == null) {
+            return false;
+        }
+        ActiveUser previous = users.put(user.getUsername(), new ActiveUser(user, System.currentTimeMillis()));
+        if (previous == null) {
+            count.incrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Removes a user who logged out or whose session expired.
+     *
+     * @param user the user
+     * @return true if the user was logged in
+     */
+    public boolean unregister(User user) {
+        if (user.getUsername() != null && users.remove(user.getUsername()) != null) {
+            count.decrementAndGet();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of users logged in
+     */
+    public long getCount() {
+        return count.get();
+    }
+
+    /**
+     * @param username a username
+     * @return true if the user is logged in
+     */
+    public boolean isActive(String username) {
+        return users.containsKey(username);
+    }
+
+    /**
+     * @return a copy of the users logged in, sorted by username
+     */
+    public List<ActiveUser> getUsers() {
+        return getUsers("username", true, 0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Gets a page of the users logged in.
+     *
+     * @param sortProperty "username", "fullName" or "loginTime"; anything else sorts by username
+     * @param ascending    whether to sort in ascending order
+     * @param first        the index of the first user of the page
+     * @param max          the maximum number of users on the page
+     * @return a copy of the users on the page
+     */
+    public List<ActiveUser> getUsers(String sortProperty, boolean ascending, int first, int max) {
+        ActiveUser[] snapshot = users.values().toArray(new ActiveUser[0]);
+        Comparator<ActiveUser> comparator = getComparator(sortProperty);
+        if (!ascending) {
+            comparator = Collections.reverseOrder(comparator);
+        }
+        Arrays.sort(snapshot, comparator);
+
+        int from = Math.min(Math.max(first, 0), snapshot.length);
+        int to = (int) Math.min((long) from + Math.max(max, 0), snapshot.length);
+        return new ArrayList<ActiveUser>(Arrays.asList(snapshot).subList(from, to));
+    }
+
+    /**
+     * Forgets all users, as when the application stops.
+     */
+    public void clear() {
+        users.clear();
+        count.set(0);
+    }
+
+    private static Comparator<ActiveUser> getComparator(String sortProperty) {
+        if ("fullName".equals(sortProperty)) {
+            return BY_FULL_NAME;
+        } else if ("loginTime".equals(sortProperty)) {
+            return BY_LOGIN_TIME;
+        }
+        return BY_USERNAME;
+    }
+
+    private static int compareStrings(String lhs, String rhs) {
+        if (lhs == null) {
+            return (rhs == null) ? 0 : -1;
+        }
+        return (rhs == null) ? 1 : lhs.compareToIgnoreCase(rhs);
+    }
+}
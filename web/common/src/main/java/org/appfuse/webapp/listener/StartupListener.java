@@ -5,6 +5,7 @@ import org.apache.commons.logging.LogFactory;
 import org.appfuse.Constants;
 import org.appfuse.service.GenericManager;
 import org.appfuse.service.LookupManager;
+import org.appfuse.service.RoleManager;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.security.authentication.AuthenticationProvider;
@@ -125,6 +126,10 @@ public class StartupListener implements ServletContextListener {
         ApplicationContext ctx = WebApplicationContextUtils.getRequiredWebApplicationContext(context);
         LookupManager mgr = (LookupManager) ctx.getBean("lookupManager");
 
+        // roles may have changed in the database, so load them again
+        RoleManager roleManager = (RoleManager) ctx.getBean("roleManager");
+        roleManager.reloadRoles();
+
         // get list of possible roles
         context.setAttribute(Constants.AVAILABLE_ROLES, mgr.getAllRoles());
         log.debug("Drop-down initialization complete [OK]");
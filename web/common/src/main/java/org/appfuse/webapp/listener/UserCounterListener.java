@@ -8,105 +8,64 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
 
-import javax.servlet.ServletContext;
 import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 import javax.servlet.http.HttpSessionAttributeListener;
 import javax.servlet.http.HttpSessionBindingEvent;
 import javax.servlet.http.HttpSessionEvent;
 import javax.servlet.http.HttpSessionListener;
-import java.util.LinkedHashSet;
-import java.util.Set;
 
 
 /**
  * UserCounterListener class used to count the current number
  * of active users for the applications.  Does this by counting
  * how many user objects are stuffed into the session.  It also grabs
- * these users and exposes them in the servlet context.
+ * these users and exposes them in the servlet context, in an
+ * {@link ActiveUserRegistry}.
  *
  * @author <a href="mailto:matt@raibledesigns.com">Matt Raible</a>
  */
 public class UserCounterListener implements ServletContextListener, HttpSessionAttributeListener, HttpSessionListener {
-    /**
-     * Name of user counter variable
-     */
-    public static final String COUNT_KEY = "userCounter";
-    /**
-     * Name of users Set in the ServletContext
-     */
-    public static final String USERS_KEY = "userNames";
     /**
      * The default event we're looking to trap.
      */
     public static final String EVENT_KEY = HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY;
-    private transient ServletContext servletContext;
-    private int counter;
-    private Set<User> users;
+    private static final AuthenticationTrustResolver TRUST_RESOLVER = new AuthenticationTrustResolverImpl();
+    private volatile ActiveUserRegistry registry;
 
     /**
      * Initialize the context
      *
      * @param sce the event
      */
-    public synchronized void contextInitialized(ServletContextEvent sce) {
-        servletContext = sce.getServletContext();
-        servletContext.setAttribute((COUNT_KEY), Integer.toString(counter));
+    public void contextInitialized(ServletContextEvent sce) {
+        registry = new ActiveUserRegistry();
+        sce.getServletContext().setAttribute(ActiveUserRegistry.REGISTRY_KEY, registry);
     }
 
     /**
-     * Set the servletContext, users and counter to null
+     * Forget the users and remove them from the servletContext
      *
      * @param event The servletContextEvent
      */
-    public synchronized void contextDestroyed(ServletContextEvent event) {
-        servletContext = null;
-        users = null;
-        counter = 0;
-    }
-
-    synchronized void incrementUserCounter() {
-        counter = Integer.parseInt((String) servletContext.getAttribute(COUNT_KEY));
-        counter++;
-        servletContext.setAttribute(COUNT_KEY, Integer.toString(counter));
-    }
-
-    synchronized void decrementUserCounter() {
-        int counter = Integer.parseInt((String) servletContext.getAttribute(COUNT_KEY));
-        counter--;
-
-        if (counter < 0) {
-            counter = 0;
+    public void contextDestroyed(ServletContextEvent event) {
+        if (registry != null) {
+            registry.clear();
         }
-
-        servletContext.setAttribute(COUNT_KEY, Integer.toString(counter));
+        event.getServletContext().removeAttribute(ActiveUserRegistry.REGISTRY_KEY);
+        registry = null;
     }
 
-    @SuppressWarnings("unchecked")
-    synchronized void addUsername(User user) {
-        users = (Set<User>) servletContext.getAttribute(USERS_KEY);
-
-        if (users == null) {
-            users = new LinkedHashSet<User>();
-        }
-
-        if (!users.contains(user)) {
-            users.add(user);
-            servletContext.setAttribute(USERS_KEY, users);
-            incrementUserCounter();
+    void addUsername(User user) {
+        if (registry != null) {
+            registry.register(user);
         }
     }
 
-    @SuppressWarnings("unchecked")
-    synchronized void removeUsername(User user) {
-        users = (Set<User>) servletContext.getAttribute(USERS_KEY);
-
-        if (users != null) {
-            users.remove(user);
+    void removeUsername(User user) {
+        if (registry != null) {
+            registry.unregister(user);
         }
-
-        servletContext.setAttribute(USERS_KEY, users);
-        decrementUserCounter();
     }
 
     /**
@@ -126,11 +85,10 @@ public class UserCounterListener implements ServletContextListener, HttpSessionA
     }
 
     private boolean isAnonymous() {
-        AuthenticationTrustResolver resolver = new AuthenticationTrustResolverImpl();
         SecurityContext ctx = SecurityContextHolder.getContext();
         if (ctx != null) {
             Authentication auth = ctx.getAuthentication();
-            return resolver.isAnonymous(auth);
+            return TRUST_RESOLVER.isAnonymous(auth);
         }
         return true;
     }
@@ -9,8 +9,13 @@ import javax.servlet.jsp.PageContext;
 import javax.servlet.jsp.tagext.TagSupport;
 import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
@@ -22,7 +27,12 @@ import java.util.Map;
  * <pre>&lt;tag:constants /&gt;</pre>
  * </p>
  *
- * <p>Optional values are "className" (fully qualified) and "scope".</p>
+ * <p>Optional values are "className" (fully qualified), "scope", "var" to
+ * expose a single variable and "map" to expose all variables as one Map, e.g.
+ * <code>&lt;tag:constants map="constants"/&gt;</code> and then
+ * <code>${constants.ADMIN_ROLE}</code>.</p>
+ *
+ * <p>The variables of a class are read once and shared by all pages.</p>
  *
  * <p>
  * <a href="BaseAction.java.html"><i>View Source</i></a>
@@ -32,7 +42,7 @@ import java.util.Map;
  */
 public class ConstantsTag extends TagSupport {
     private static final long serialVersionUID = 3258417209566116146L;
-    private final Log log = LogFactory.getLog(ConstantsTag.class);
+    private static final Log log = LogFactory.getLog(ConstantsTag.class);
 
     /**
      * The class to expose the variables from.
@@ -49,6 +59,17 @@ public class ConstantsTag extends TagSupport {
      */
     protected String var;
 
+    /**
+     * The name of a single Map variable to expose all variables in.
+     */
+    protected String map;
+
+    /**
+     * The variables of each class exposed so far, by class name.
+     */
+    private static final ConcurrentMap<String, Map<String, Object>> CONSTANTS =
+            new ConcurrentHashMap<String, Map<String, Object>>();
+
     /**
      * Main method that does processing and exposes Constants in specified scope 
      * @return int
@@ -56,38 +77,66 @@ public class ConstantsTag extends TagSupport {
      */
     @Override
     public int doStartTag() throws JspException {
-        // Using reflection, get the available field names in the class
-        Class c = null;
         int toScope = PageContext.PAGE_SCOPE;
 
         if (scope != null) {
             toScope = getScope(scope);
         }
 
+        Map<String, Object> constants = getConstants(clazz);
+
+        if (var != null) {
+            if (!constants.containsKey(var)) {
+                log.error("No such field: " + var);
+                throw new JspException(new NoSuchFieldException(var));
+            }
+            pageContext.setAttribute(var, constants.get(var), toScope);
+        } else if (map != null) {
+            pageContext.setAttribute(map, constants, toScope);
+        } else {
+            // if var is null, expose all variables
+            for (Map.Entry<String, Object> constant : constants.entrySet()) {
+                pageContext.setAttribute(constant.getKey(), constant.getValue(), toScope);
+            }
+        }
+
+        // Continue processing this page
+        return (SKIP_BODY);
+    }
+
+    /**
+     * Gets the variables of a class, which are read using reflection the
+     * first time the class is asked for.
+     * @param className the fully qualified name of the class
+     * @return an unmodifiable map of variable names to values, in declaration order
+     * @throws JspException if the class can't be loaded or read
+     */
+    static Map<String, Object> getConstants(String className) throws JspException {
+        Map<String, Object> constants = CONSTANTS.get(className);
+        if (constants != null) {
+            return constants;
+        }
+
+        // Using reflection, get the available field names in the class
+        Class c = null;
+
         try {
-            c = Class.forName(clazz);
+            c = Class.forName(className);
         } catch (ClassNotFoundException cnf) {
             log.error("ClassNotFound - maybe a typo?");
             throw new JspException(cnf.getMessage());
         }
 
+        constants = new LinkedHashMap<String, Object>();
+
         try {
-            // if var is null, expose all variables
-            if (var == null) {
-                Field[] fields = c.getDeclaredFields();
+            Field[] fields = c.getDeclaredFields();
 
-                AccessibleObject.setAccessible(fields, true);
+            AccessibleObject.setAccessible(fields, true);
 
-                for (Field field : fields) {
-                    pageContext.setAttribute(field.getName(), field.get(this), toScope);
-                }
-            } else {
-                try {
-                    Object value = c.getField(var).get(this);
-                    pageContext.setAttribute(c.getField(var).getName(), value, toScope);
-                } catch (NoSuchFieldException nsf) {
-                    log.error(nsf.getMessage());
-                    throw new JspException(nsf);
+            for (Field field : fields) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    constants.put(field.getName(), field.get(null));
                 }
             }
         } catch (IllegalAccessException iae) {
@@ -95,8 +144,9 @@ public class ConstantsTag extends TagSupport {
             throw new JspException(iae);
         }
 
-        // Continue processing this page
-        return (SKIP_BODY);
+        constants = Collections.unmodifiableMap(constants);
+        Map<String, Object> existing = CONSTANTS.putIfAbsent(className, constants);
+        return (existing != null) ? existing : constants;
     }
 
     public void setClassName(String clazz) {
@@ -123,13 +173,23 @@ public class ConstantsTag extends TagSupport {
         return (this.var);
     }
 
+    public void setMap(String map) {
+        this.map = map;
+    }
+
+    public String getMap() {
+        return (this.map);
+    }
+
     /**
      * Release all allocated resources.
      */
     public void release() {
         super.release();
-        clazz = null;
-        scope = Constants.class.getName();
+        clazz = Constants.class.getName();
+        scope = null;
+        var = null;
+        map = null;
     }
 
     /**
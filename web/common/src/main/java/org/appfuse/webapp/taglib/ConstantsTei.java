@@ -11,6 +11,7 @@ import java.lang.reflect.AccessibleObject;
 import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -40,8 +41,11 @@ public class ConstantsTei extends TagExtraInfo {
 
             Class c = Class.forName(clazz);
 
-            // if no var specified, get all
-            if (data.getAttributeString("var") == null) {
+            // if no var specified, get all, either as one map or one by one
+            if (data.getAttributeString("var") == null && data.getAttributeString("map") != null) {
+                vars.add(new VariableInfo(data.getAttributeString("map"), Map.class.getName(),
+                        true, VariableInfo.AT_END));
+            } else if (data.getAttributeString("var") == null) {
                 Field[] fields = c.getDeclaredFields();
 
                 AccessibleObject.setAccessible(fields, true);
@@ -0,0 +1,203 @@
+package org.appfuse.webapp.util;
+
+import org.appfuse.model.LabelValue;
+import org.appfuse.webapp.jsp.EscapeXml;
+
+import java.text.Collator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The countries of <code>Locale.getAvailableLocales()</code>, named in one locale and sorted by
+ * name with that locale's Collator, along with the <code>&lt;option&gt;</code> markup for a
+ * country drop-down. A catalog is built the first time its locale is asked for and shared from
+ * then on, so country drop-downs don't rebuild and sort the list on every page.
+ * <p/>
+ * Catalogs are immutable. The LabelValues returned by {@link #getCountries()} are shared as well,
+ * so they must not be changed.
+ */
+public final class CountryCatalog {
+    private static final Set<Locale> AVAILABLE_LOCALES =
+            new HashSet<Locale>(Arrays.asList(Locale.getAvailableLocales()));
+    private static final ConcurrentMap<Locale, CountryCatalog> CATALOGS =
+            new ConcurrentHashMap<Locale, CountryCatalog>();
+    private static final String SELECTED = " selected=\"selected\"";
+
+    private final Locale locale;
+    private final List<LabelValue> countries;
+    private final List<String> codes;
+    private final Map<String, String> namesByCode;
+    private final Map<String, String> codesByName;
+    private final Map<String, Integer> indexByCode;
+    private final int[] optionOffsets;
+    private final String options;
+
+    /**
+     * Gets the catalog for a locale. Locales the JDK has no data for share the catalog of their
+     * language, or the root locale's, so a request can't make up new catalogs.
+     *
+     * @param locale the locale to name the countries in
+     * @return the catalog for the locale
+     */
+    public static CountryCatalog getInstance(Locale locale) {
+        Locale key = normalize(locale);
+        CountryCatalog catalog = CATALOGS.get(key);
+        if (catalog == null) {
+            catalog = new CountryCatalog(key);
+            CountryCatalog existing = CATALOGS.putIfAbsent(key, catalog);
+            if (existing != null) {
+                catalog = existing;
+            }
+        }
+        return catalog;
+    }
+
+    private static Locale normalize(Locale locale) {
+        if (locale == null) {
+            return Locale.ROOT;
+        }
+        if (AVAILABLE_LOCALES.contains(locale)) {
+            return locale;
+        }
+        Locale language = new Locale(locale.getLanguage());
+        return AVAILABLE_LOCALES.contains(language) ? language : Locale.ROOT;
+    }
+
+    private CountryCatalog(Locale locale) {
+        this.locale = locale;
+
+        // one name per country code, as several locales share a country
+        Map<String, String> names = new HashMap<String, String>();
+        for (Locale available : Locale.getAvailableLocales()) {
+            String iso = available.getCountry();
+            if (!iso.isEmpty() && !names.containsKey(iso)) {
+                String name = available.getDisplayCountry(locale);
+                if (!name.isEmpty()) {
+                    names.put(iso, name);
+                }
+            }
+        }
+
+        List<LabelValue> sorted = new ArrayList<LabelValue>(names.size());
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            sorted.add(new LabelValue(entry.getValue(), entry.getKey()));
+        }
+        final Collator collator = Collator.getInstance(locale);
+        Collections.sort(sorted, new Comparator<LabelValue>() {
+            public int compare(LabelValue lhs, LabelValue rhs) {
+                return collator.compare(lhs.getLabel(), rhs.getLabel());
+            }
+        });
+
+        List<String> codeList = new ArrayList<String>(sorted.size());
+        Map<String, String> byCode = new LinkedHashMap<String, String>();
+        Map<String, String> byName = new LinkedHashMap<String, String>();
+        Map<String, Integer> index = new HashMap<String, Integer>();
+        int[] offsets = new int[sorted.size() + 1];
+        StringBuilder sb = new StringBuilder(sorted.size() * 48);
+        for (int i = 0; i < sorted.size(); i++) {
+            LabelValue country = sorted.get(i);
+            codeList.add(country.getValue());
+            byCode.put(country.getValue(), country.getLabel());
+            byName.put(country.getLabel(), country.getValue());
+            index.put(country.getValue(), i);
+            offsets[i] = sb.length();
+            appendOption(sb, country, false);
+        }
+        offsets[sorted.size()] = sb.length();
+
+        this.countries = Collections.unmodifiableList(sorted);
+        this.codes = Collections.unmodifiableList(codeList);
+        this.namesByCode = Collections.unmodifiableMap(byCode);
+        this.codesByName = Collections.unmodifiableMap(byName);
+        this.indexByCode = index;
+        this.optionOffsets = offsets;
+        this.options = sb.toString();
+    }
+
+    private static void appendOption(StringBuilder sb, LabelValue country, boolean selected) {
+        sb.append("    <option value=\"").append(EscapeXml.escape(country.getValue())).append('"');
+        if (selected) {
+            sb.append(SELECTED);
+        }
+        sb.append('>').append(EscapeXml.escape(country.getLabel())).append("</option>\n");
+    }
+
+    /**
+     * @return the locale the countries are named in
+     */
+    public Locale getLocale() {
+        return locale;
+    }
+
+    /**
+     * @return the countries sorted by name, with the name as label and the two letter
+     *         uppercase ISO code as value
+     */
+    public List<LabelValue> getCountries() {
+        return countries;
+    }
+
+    /**
+     * @return the country codes, sorted by country name
+     */
+    public List<String> getCodes() {
+        return codes;
+    }
+
+    /**
+     * @return country names by code, iterating in name order
+     */
+    public Map<String, String> getNamesByCode() {
+        return namesByCode;
+    }
+
+    /**
+     * @return country codes by name, iterating in name order
+     */
+    public Map<String, String> getCodesByName() {
+        return codesByName;
+    }
+
+    /**
+     * @param code a two letter uppercase ISO country code
+     * @return the country's name, or null if there's no such country
+     */
+    public String getName(String code) {
+        return namesByCode.get(code);
+    }
+
+    /**
+     * @return an <code>&lt;option&gt;</code> element per country, one per line
+     */
+    public String getOptions() {
+        return options;
+    }
+
+    /**
+     * @param selected the code of the country to mark selected, may be null
+     * @return an <code>&lt;option&gt;</code> element per country, one per line
+     */
+    public String getOptions(String selected) {
+        Integer i = (selected != null) ? indexByCode.get(selected) : null;
+        if (i == null) {
+            return options;
+        }
+        StringBuilder sb = new StringBuilder(options.length() + SELECTED.length());
+        sb.append(options, 0, optionOffsets[i]);
+        appendOption(sb, countries.get(i), true);
+        sb.append(options, optionOffsets[i + 1], options.length());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,120 @@
+package org.appfuse.webapp.util;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the messages of a request that redirects until the request it
+ * redirects to picks them up with their token, or until they expire. Used
+ * by {@link FlashMessages} for requests without a session, so that showing
+ * a message after a redirect doesn't take an HttpSession.
+ * <p/>
+ * The messages are kept in memory, so on a cluster the redirect must come
+ * back to the same node, as it does with sticky sessions.
+ */
+public class FlashMessageStore {
+    /**
+     * Seconds messages are kept for by default
+     */
+    public static final int DEFAULT_MAX_AGE = 60;
+    /**
+     * Number of requests' messages kept at most by default
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10000;
+
+    private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<String, Entry>();
+    private final SecureRandom random = new SecureRandom();
+    private final AtomicLong nextPurge = new AtomicLong();
+    private final int maxAge;
+    private final int maxEntries;
+
+    public FlashMessageStore() {
+        this(DEFAULT_MAX_AGE, DEFAULT_MAX_ENTRIES);
+    }
+
+    /**
+     * @param maxAge     seconds messages are kept for
+     * @param maxEntries number of requests' messages kept at most
+     */
+    public FlashMessageStore(int maxAge, int maxEntries) {
+        this.maxAge = maxAge;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return seconds messages are kept for
+     */
+    public int getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Keeps messages for the next request.
+     *
+     * @param messages lists of messages by attribute name
+     * @return the token to get the messages back with, or null if the store is full
+     */
+    public String put(Map<String, List<String>> messages) {
+        long now = System.currentTimeMillis();
+        purgeExpired(now);
+        if (entries.size() >= maxEntries) {
+            return null;
+        }
+        String token = new BigInteger(130, random).toString(32);
+        entries.put(token, new Entry(messages, now + maxAge * 1000L));
+        return token;
+    }
+
+    /**
+     * Gets messages back, and forgets them.
+     *
+     * @param token the token the messages were kept under
+     * @return lists of messages by attribute name, or null if there are none or they expired
+     */
+    public Map<String, List<String>> take(String token) {
+        Entry entry = entries.remove(token);
+        if (entry == null || entry.expires < System.currentTimeMillis()) {
+            return null;
+        }
+        return entry.messages;
+    }
+
+    /**
+     * @return the number of requests' messages kept, expired or not
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Drops expired messages, at most once per maxAge, as messages that
+     * are never picked up would otherwise stay forever.
+     */
+    private void purgeExpired(long now) {
+        long next = nextPurge.get();
+        if (now < next || !nextPurge.compareAndSet(next, now + maxAge * 1000L)) {
+            return;
+        }
+        for (Iterator<Entry> it = entries.values().iterator(); it.hasNext(); ) {
+            if (it.next().expires < now) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class Entry {
+        private final Map<String, List<String>> messages;
+        private final long expires;
+
+        private Entry(Map<String, List<String>> messages, long expires) {
+            this.messages = messages;
+            this.expires = expires;
+        }
+    }
+}
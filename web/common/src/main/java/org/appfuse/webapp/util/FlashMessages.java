@@ -0,0 +1,174 @@
+package org.appfuse.webapp.util;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Success and error messages that are shown on the next page, even when
+ * that page is reached through a redirect (redirect after post).
+ * <p/>
+ * Messages are lists of Strings in an attribute, e.g. "successMessages" or
+ * "errors". While {@link org.appfuse.webapp.filter.FlashMessageFilter} is
+ * configured and the request has no session, they're kept in the request,
+ * and in a {@link FlashMessageStore} under a short-lived cookie when the
+ * request redirects; the next request gets them back as request attributes.
+ * Requests that already have a session keep their messages in it, as they
+ * always did, and so do requests outside of the filter.
+ * <p/>
+ * Pages find the messages with <code>${errors}</code> or
+ * <code>${successMessages}</code> whichever way they were kept.
+ */
+public class FlashMessages {
+    /**
+     * Name of the cookie holding the token of the messages
+     */
+    public static final String COOKIE_NAME = "FLASH_MESSAGES";
+    private static final String ATTRIBUTE = FlashMessages.class.getName();
+
+    private final FlashMessageStore store;
+    private final HttpServletRequest request;
+    private final HttpServletResponse response;
+    private final Set<String> names = new LinkedHashSet<String>();
+    private boolean saved;
+
+    /**
+     * Keeps the messages of a request which has no session yet.
+     *
+     * @param store    where the messages are kept across a redirect
+     * @param request  the current request
+     * @param response the current response
+     */
+    public FlashMessages(FlashMessageStore store, HttpServletRequest request, HttpServletResponse response) {
+        this.store = store;
+        this.request = request;
+        this.response = response;
+        request.setAttribute(ATTRIBUTE, this);
+    }
+
+    /**
+     * Adds a message for the user.
+     *
+     * @param request the current request
+     * @param name    the attribute the messages are in, e.g. "errors"
+     * @param message the message
+     */
+    @SuppressWarnings("unchecked")
+    public static void add(HttpServletRequest request, String name, String message) {
+        FlashMessages flash = (FlashMessages) request.getAttribute(ATTRIBUTE);
+        HttpSession session = request.getSession(false);
+
+        if (flash != null && session == null) {
+            flash.getMessages(name).add(message);
+            return;
+        }
+
+        if (session == null) {
+            session = request.getSession();
+        }
+        List<String> messages = (List<String>) session.getAttribute(name);
+        if (messages == null) {
+            messages = new ArrayList<String>();
+        }
+        messages.add(message);
+        session.setAttribute(name, messages);
+    }
+
+    /**
+     * Gets the messages added, or carried over from the previous request.
+     *
+     * @param request the current request
+     * @param name    the attribute the messages are in, e.g. "errors"
+     * @return the messages, or null if there are none
+     */
+    @SuppressWarnings("unchecked")
+    public static List<String> get(HttpServletRequest request, String name) {
+        Object messages = request.getAttribute(name);
+        if (messages == null) {
+            HttpSession session = request.getSession(false);
+            if (session != null) {
+                messages = session.getAttribute(name);
+            }
+        }
+        return (List<String>) messages;
+    }
+
+    /**
+     * Makes messages carried over from the previous request available to
+     * this one, as request attributes.
+     *
+     * @param messages lists of messages by attribute name
+     */
+    public void restore(Map<String, List<String>> messages) {
+        for (Map.Entry<String, List<String>> entry : messages.entrySet()) {
+            request.setAttribute(entry.getKey(), entry.getValue());
+            names.add(entry.getKey());
+        }
+    }
+
+    /**
+     * Keeps the messages no page has shown yet for the next request, as this
+     * one is redirecting. Messages go to the session if the store is full.
+     */
+    @SuppressWarnings("unchecked")
+    public void save() {
+        if (saved) {
+            return;
+        }
+        saved = true;
+
+        Map<String, List<String>> messages = new LinkedHashMap<String, List<String>>();
+        for (String name : names) {
+            Object value = request.getAttribute(name);
+            if (value instanceof List && !((List) value).isEmpty()) {
+                messages.put(name, new ArrayList<String>((List<String>) value));
+            }
+        }
+        if (messages.isEmpty()) {
+            return;
+        }
+
+        String token = store.put(messages);
+        if (token == null) {
+            HttpSession session = request.getSession();
+            for (Map.Entry<String, List<String>> entry : messages.entrySet()) {
+                session.setAttribute(entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+
+        Cookie cookie = new Cookie(COOKIE_NAME, token);
+        cookie.setPath(getCookiePath(request));
+        cookie.setMaxAge(store.getMaxAge());
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        response.addCookie(cookie);
+    }
+
+    /**
+     * @param request the current request
+     * @return the path of the cookie holding the token, i.e. the context path
+     */
+    public static String getCookiePath(HttpServletRequest request) {
+        String path = request.getContextPath();
+        return (path == null || path.isEmpty()) ? "/" : path;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> getMessages(String name) {
+        List<String> messages = (List<String>) request.getAttribute(name);
+        if (messages == null) {
+            messages = new ArrayList<String>();
+            request.setAttribute(name, messages);
+        }
+        names.add(name);
+        return messages;
+    }
+}
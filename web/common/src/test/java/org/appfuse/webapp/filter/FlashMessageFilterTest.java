@@ -0,0 +1,117 @@
+package org.appfuse.webapp.filter;
+
+import org.appfuse.webapp.util.FlashMessages;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class FlashMessageFilterTest {
+    private FlashMessageFilter filter;
+
+    @Before
+    public void setUp() throws Exception {
+        filter = new FlashMessageFilter();
+        filter.init(new MockFilterConfig());
+    }
+
+    @Test
+    public void testMessagesSurviveRedirectWithoutSession() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new SaveMessageChain(true));
+
+        assertNull(request.getSession(false));
+        Cookie cookie = response.getCookie(FlashMessages.COOKIE_NAME);
+        assertNotNull(cookie);
+        assertTrue(cookie.isHttpOnly());
+        assertTrue(cookie.getMaxAge() > 0);
+
+        // the page redirected to gets the messages
+        MessagesChain next = new MessagesChain();
+        request = new MockHttpServletRequest();
+        request.setCookies(cookie);
+        response = new MockHttpServletResponse();
+        filter.doFilter(request, response, next);
+
+        assertEquals(Collections.singletonList("Saved"), next.messages);
+        assertNull(request.getSession(false));
+        assertEquals(0, response.getCookie(FlashMessages.COOKIE_NAME).getMaxAge());
+
+        // but only once
+        next = new MessagesChain();
+        request = new MockHttpServletRequest();
+        request.setCookies(cookie);
+        filter.doFilter(request, new MockHttpServletResponse(), next);
+        assertNull(next.messages);
+    }
+
+    @Test
+    public void testMessagesStayInRequestWithoutRedirect() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new SaveMessageChain(false));
+
+        assertEquals(Collections.singletonList("Saved"), request.getAttribute("successMessages"));
+        assertNull(request.getSession(false));
+        assertNull(response.getCookie(FlashMessages.COOKIE_NAME));
+    }
+
+    @Test
+    public void testExistingSessionKeepsMessages() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        MockHttpSession session = new MockHttpSession();
+        request.setSession(session);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new SaveMessageChain(true));
+
+        assertEquals(Collections.singletonList("Saved"), session.getAttribute("successMessages"));
+        assertNull(response.getCookie(FlashMessages.COOKIE_NAME));
+    }
+
+    @Test
+    public void testSessionWithoutFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        FlashMessages.add(request, "errors", "Failed");
+
+        assertNotNull(request.getSession(false));
+        assertEquals(Collections.singletonList("Failed"), FlashMessages.get(request, "errors"));
+    }
+
+    private static class SaveMessageChain implements FilterChain {
+        private final boolean redirect;
+
+        SaveMessageChain(boolean redirect) {
+            this.redirect = redirect;
+        }
+
+        public void doFilter(ServletRequest request, ServletResponse response) throws IOException {
+            FlashMessages.add((HttpServletRequest) request, "successMessages", "Saved");
+            if (redirect) {
+                ((HttpServletResponse) response).sendRedirect("/home");
+            }
+        }
+    }
+
+    private static class MessagesChain implements FilterChain {
+        private List<String> messages;
+
+        public void doFilter(ServletRequest request, ServletResponse response) {
+            messages = FlashMessages.get((HttpServletRequest) request, "successMessages");
+        }
+    }
+}
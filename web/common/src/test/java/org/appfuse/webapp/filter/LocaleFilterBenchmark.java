@@ -0,0 +1,115 @@
+package org.appfuse.webapp.filter;
+
+import org.appfuse.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs requests through {@link LocaleFilter} with a logged-in user's preferred locale in the session,
+ * with and without a "locale" parameter, and asks the {@link LocaleRequestWrapper} for its locales as
+ * fmt tags and Spring's LocaleResolver do. Requests accept three languages, as browsers usually send.
+ * The GC profiler reports bytes allocated per request (gc.alloc.rate.norm).
+ * Run after <code>mvn test-compile</code> with:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.appfuse.webapp.filter.LocaleFilterBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocaleFilterBenchmark {
+    private LocaleFilter filter;
+    private MockHttpServletRequest request;
+    private MockHttpServletRequest requestWithParameter;
+    private MockHttpServletResponse response;
+    private LocaleRequestWrapper wrapper;
+
+    @Setup
+    public void setUp() throws ServletException {
+        filter = new LocaleFilter();
+        filter.init(new MockFilterConfig());
+        response = new MockHttpServletResponse();
+
+        request = newRequest();
+        requestWithParameter = newRequest();
+        requestWithParameter.addParameter("locale", "fr_FR");
+        wrapper = new LocaleRequestWrapper(newRequest(), Locale.FRANCE);
+    }
+
+    private static MockHttpServletRequest newRequest() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        request.setPreferredLocales(Arrays.asList(Locale.US, Locale.ENGLISH, Locale.GERMAN));
+        MockHttpSession session = new MockHttpSession();
+        session.setAttribute(Constants.PREFERRED_LOCALE_KEY, Locale.FRANCE);
+        request.setSession(session);
+        return request;
+    }
+
+    @Benchmark
+    public void filter(Blackhole blackhole) throws IOException, ServletException {
+        filter.doFilter(request, response, new LocaleChain(blackhole));
+    }
+
+    @Benchmark
+    public void filterWithLocaleParameter(Blackhole blackhole) throws IOException, ServletException {
+        filter.doFilter(requestWithParameter, response, new LocaleChain(blackhole));
+    }
+
+    @Benchmark
+    public void wrapperGetLocales(Blackhole blackhole) {
+        for (Enumeration<Locale> locales = wrapper.getLocales(); locales.hasMoreElements();) {
+            blackhole.consume(locales.nextElement());
+        }
+    }
+
+    /**
+     * Reads the request's locale, as the rest of the request would.
+     */
+    private static final class LocaleChain implements FilterChain {
+        private final Blackhole blackhole;
+
+        private LocaleChain(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        public void doFilter(ServletRequest request, ServletResponse response) {
+            blackhole.consume(request.getLocale());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(LocaleFilterBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,128 @@
+package org.appfuse.webapp.jsp;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockPageContext;
+
+import javax.el.CompositeELResolver;
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.FunctionMapper;
+import javax.el.MapELResolver;
+import javax.el.VariableMapper;
+import javax.servlet.jsp.JspContext;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Escapes form values the way every <code>${...}</code> on a page does: directly through
+ * {@link EscapeXml#escape}, through {@link EscapeXmlELResolver}, which resolves the value with the
+ * rest of the resolver chain first, and through {@link DirectEscapeXmlELResolver}. Values are a short
+ * field (a name) or a long one (an address or description, ~2 KB), either plain or with markup to
+ * escape every few words.
+ * The GC profiler reports bytes allocated per escape (gc.alloc.rate.norm).
+ * Run after <code>mvn test-compile</code> with:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.appfuse.webapp.jsp.EscapeXmlBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EscapeXmlBenchmark {
+    @Param({"short", "shortEscaped", "long", "longEscaped"})
+    private String input;
+
+    private String value;
+    private Map<String, String> form;
+    private ELContext context;
+    private ELContext directContext;
+
+    @Setup
+    public void setUp() {
+        value = value(input);
+        form = Collections.singletonMap("value", value);
+
+        CompositeELResolver chain = new CompositeELResolver();
+        chain.add(new EscapeXmlELResolver());
+        chain.add(new MapELResolver());
+        context = newContext(chain);
+
+        CompositeELResolver direct = new CompositeELResolver();
+        direct.add(new DirectEscapeXmlELResolver());
+        direct.add(new MapELResolver());
+        directContext = newContext(direct);
+    }
+
+    @Benchmark
+    public String escape() {
+        return EscapeXml.escape(value);
+    }
+
+    @Benchmark
+    public Object resolveAndEscape() {
+        return context.getELResolver().getValue(context, form, "value");
+    }
+
+    @Benchmark
+    public Object resolveAndEscapeDirect() {
+        return directContext.getELResolver().getValue(directContext, form, "value");
+    }
+
+    private static ELContext newContext(final ELResolver resolver) {
+        ELContext context = new ELContext() {
+            @Override
+            public ELResolver getELResolver() {
+                return resolver;
+            }
+
+            @Override
+            public FunctionMapper getFunctionMapper() {
+                return null;
+            }
+
+            @Override
+            public VariableMapper getVariableMapper() {
+                return null;
+            }
+        };
+        context.putContext(JspContext.class, new MockPageContext());
+        return context;
+    }
+
+    private static String value(String input) {
+        if (input.startsWith("short")) {
+            return input.endsWith("Escaped") ? "O'Reilly & Sons" : "Matt Raible";
+        }
+
+        String word = input.endsWith("Escaped") ? "<b>Denver</b> & \"Boulder\" " : "Denver and Boulder ";
+        StringBuilder sb = new StringBuilder(2048);
+        while (sb.length() < 2048) {
+            sb.append("The quick brown fox jumps over the lazy dog in ").append(word);
+        }
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(EscapeXmlBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
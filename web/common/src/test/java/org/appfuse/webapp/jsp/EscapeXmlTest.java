@@ -0,0 +1,97 @@
+package org.appfuse.webapp.jsp;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockPageContext;
+
+import javax.el.CompositeELResolver;
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.FunctionMapper;
+import javax.el.VariableMapper;
+import javax.servlet.jsp.JspContext;
+import javax.servlet.jsp.PageContext;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EscapeXmlTest {
+    private static final String MARKUP = "<a href=\"x\">Tom & Jerry's</a>";
+    private static final String ESCAPED = "&lt;a href=&#034;x&#034;&gt;Tom &amp; Jerry&#039;s&lt;/a&gt;";
+
+    private MockPageContext pageContext;
+    private ELContext context;
+
+    @Before
+    public void setUp() {
+        pageContext = new MockPageContext();
+        final CompositeELResolver resolver = new CompositeELResolver();
+        resolver.add(new DirectEscapeXmlELResolver());
+        context = new ELContext() {
+            @Override
+            public ELResolver getELResolver() {
+                return resolver;
+            }
+
+            @Override
+            public FunctionMapper getFunctionMapper() {
+                return null;
+            }
+
+            @Override
+            public VariableMapper getVariableMapper() {
+                return null;
+            }
+        };
+        context.putContext(JspContext.class, pageContext);
+    }
+
+    @Test
+    public void testEscape() {
+        assertEquals(ESCAPED, EscapeXml.escape(MARKUP));
+        assertEquals("&amp;", EscapeXml.escape("&"));
+        assertEquals("", EscapeXml.escape(""));
+    }
+
+    @Test
+    public void testEscapeReturnsSameInstanceWhenNothingToEscape() {
+        String plain = "Matt Raible, Denver";
+        assertSame(plain, EscapeXml.escape(plain));
+    }
+
+    @Test
+    public void testDirectResolverEscapesAttributesAndProperties() {
+        Map<String, String> form = Collections.singletonMap("name", MARKUP);
+        pageContext.setAttribute("form", form, PageContext.REQUEST_SCOPE);
+        pageContext.setAttribute("message", MARKUP);
+
+        assertEquals(ESCAPED, context.getELResolver().getValue(context, null, "message"));
+        assertTrue(context.isPropertyResolved());
+
+        assertSame(form, context.getELResolver().getValue(context, null, "form"));
+        assertEquals(ESCAPED, context.getELResolver().getValue(context, form, "name"));
+        assertTrue(context.isPropertyResolved());
+    }
+
+    @Test
+    public void testDirectResolverLeavesUnknownNamesToOtherResolvers() {
+        assertNull(context.getELResolver().getValue(context, null, "unknown"));
+        assertFalse(context.isPropertyResolved());
+    }
+
+    @Test
+    public void testDirectResolverHonorsOutTag() {
+        pageContext.setAttribute("message", MARKUP);
+        pageContext.setAttribute(EscapeXmlELResolver.ESCAPE_XML_ATTRIBUTE, false);
+
+        assertNull(context.getELResolver().getValue(context, null, "message"));
+        assertFalse(context.isPropertyResolved());
+    }
+
+    @Test
+    public void testChainResolverIsOptIn() {
+        assertTrue(EscapeXmlELResolverListener.createResolver(null) instanceof DirectEscapeXmlELResolver);
+        assertTrue(EscapeXmlELResolverListener.createResolver("chain") instanceof EscapeXmlELResolver);
+    }
+}
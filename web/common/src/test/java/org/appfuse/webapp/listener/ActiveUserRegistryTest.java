@@ -0,0 +1,94 @@
+package org.appfuse.webapp.listener;
+
+import org.appfuse.model.User;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ActiveUserRegistryTest {
+    private ActiveUserRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = new ActiveUserRegistry();
+    }
+
+    @Test
+    public void testRegisterAndUnregister() {
+        assertTrue(registry.register(user("tomcat", "Tomcat", "User")));
+        assertFalse(registry.register(user("tomcat", "Tomcat", "User")));
+        assertTrue(registry.register(user("admin", "Matt", "Raible")));
+        assertEquals(2, registry.getCount());
+        assertTrue(registry.isActive("tomcat"));
+
+        assertTrue(registry.unregister(user("tomcat", "Tomcat", "User")));
+        assertFalse(registry.unregister(user("tomcat", "Tomcat", "User")));
+        assertEquals(1, registry.getCount());
+        assertFalse(registry.isActive("tomcat"));
+    }
+
+    @Test
+    public void testSortedPages() {
+        registry.register(user("mraible", "Matt", "Raible"));
+        registry.register(user("admin", "Zed", "Admin"));
+        registry.register(user("tomcat", "Tomcat", "User"));
+
+        List<ActiveUser> users = registry.getUsers();
+        assertEquals("admin", users.get(0).getUsername());
+        assertEquals("tomcat", users.get(2).getUsername());
+
+        users = registry.getUsers("fullName", false, 1, 5);
+        assertEquals(2, users.size());
+        assertEquals("Tomcat User", users.get(0).getFullName());
+        assertEquals("Matt Raible", users.get(1).getFullName());
+
+        assertTrue(registry.getUsers("username", true, 3, 10).isEmpty());
+    }
+
+    @Test
+    public void testConcurrentLogins() throws Exception {
+        final int threads = 8;
+        final int usersPerThread = 500;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            executor.execute(new Runnable() {
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < usersPerThread; i++) {
+                        User user = user("user" + thread + "-" + i, "First", "Last");
+                        registry.register(user);
+                        if (i % 2 == 0) {
+                            registry.unregister(user);
+                        }
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(threads * usersPerThread / 2, registry.getCount());
+        assertEquals(registry.getCount(), registry.getUsers().size());
+    }
+
+    private static User user(String username, String firstName, String lastName) {
+        User user = new User(username);
+        user.setFirstName(firstName);
+        user.setLastName(lastName);
+        return user;
+    }
+}
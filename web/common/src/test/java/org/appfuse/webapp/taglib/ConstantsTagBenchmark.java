@@ -0,0 +1,77 @@
+package org.appfuse.webapp.taglib;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockPageContext;
+
+import javax.servlet.jsp.JspException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exposes all of org.appfuse.Constants to a page, as <code>&lt;appfuse:constants/&gt;</code> does
+ * each time the page is rendered, all of them as one map with the "map" attribute, and a single
+ * constant with the "var" attribute.
+ * The GC profiler reports bytes allocated per tag (gc.alloc.rate.norm).
+ * Run after <code>mvn test-compile</code> with:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.appfuse.webapp.taglib.ConstantsTagBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConstantsTagBenchmark {
+    private ConstantsTag allConstants;
+    private ConstantsTag constantsMap;
+    private ConstantsTag oneConstant;
+
+    @Setup
+    public void setUp() {
+        MockPageContext pageContext = new MockPageContext();
+        allConstants = new ConstantsTag();
+        allConstants.setPageContext(pageContext);
+        constantsMap = new ConstantsTag();
+        constantsMap.setPageContext(pageContext);
+        constantsMap.setMap("constants");
+        oneConstant = new ConstantsTag();
+        oneConstant.setPageContext(pageContext);
+        oneConstant.setVar("ADMIN_ROLE");
+        oneConstant.setScope("request");
+    }
+
+    @Benchmark
+    public int exposeAll() throws JspException {
+        return allConstants.doStartTag();
+    }
+
+    @Benchmark
+    public int exposeAllAsMap() throws JspException {
+        return constantsMap.doStartTag();
+    }
+
+    @Benchmark
+    public int exposeOne() throws JspException {
+        return oneConstant.doStartTag();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(ConstantsTagBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,65 @@
+package org.appfuse.webapp.taglib;
+
+import org.appfuse.Constants;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.mock.web.MockPageContext;
+
+import javax.servlet.jsp.JspException;
+import javax.servlet.jsp.PageContext;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class ConstantsTagTest {
+    private MockPageContext pageContext;
+    private ConstantsTag tag;
+
+    @Before
+    public void setUp() {
+        pageContext = new MockPageContext();
+        tag = new ConstantsTag();
+        tag.setPageContext(pageContext);
+    }
+
+    @Test
+    public void testExposeAll() throws Exception {
+        tag.doStartTag();
+        assertEquals(Constants.ADMIN_ROLE, pageContext.getAttribute("ADMIN_ROLE"));
+        assertEquals(Constants.USER_KEY, pageContext.getAttribute("USER_KEY"));
+    }
+
+    @Test
+    public void testExposeOne() throws Exception {
+        tag.setVar("ADMIN_ROLE");
+        tag.setScope("request");
+        tag.doStartTag();
+        assertEquals(Constants.ADMIN_ROLE, pageContext.getAttribute("ADMIN_ROLE", PageContext.REQUEST_SCOPE));
+        assertNull(pageContext.getAttribute("USER_KEY", PageContext.REQUEST_SCOPE));
+    }
+
+    @Test
+    public void testExposeAllAsMap() throws Exception {
+        tag.setMap("constants");
+        tag.doStartTag();
+        Map<?, ?> constants = (Map<?, ?>) pageContext.getAttribute("constants");
+        assertEquals(Constants.ADMIN_ROLE, constants.get("ADMIN_ROLE"));
+        assertNull(pageContext.getAttribute("ADMIN_ROLE"));
+        assertSame(constants, ConstantsTag.getConstants(Constants.class.getName()));
+    }
+
+    @Test(expected = JspException.class)
+    public void testUnknownVar() throws Exception {
+        tag.setVar("NO_SUCH_CONSTANT");
+        tag.doStartTag();
+    }
+
+    @Test
+    public void testReleaseResetsClassName() throws Exception {
+        tag.setClassName(String.class.getName());
+        tag.release();
+        tag.setPageContext(pageContext);
+        tag.doStartTag();
+        assertEquals(Constants.ADMIN_ROLE, pageContext.getAttribute("ADMIN_ROLE"));
+    }
+}
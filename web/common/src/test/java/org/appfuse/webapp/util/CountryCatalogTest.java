@@ -0,0 +1,48 @@
+package org.appfuse.webapp.util;
+
+import org.appfuse.model.LabelValue;
+import org.junit.Test;
+
+import java.text.Collator;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class CountryCatalogTest {
+
+    @Test
+    public void testCatalogIsSharedPerLocale() {
+        assertSame(CountryCatalog.getInstance(Locale.US), CountryCatalog.getInstance(Locale.US));
+        // made up locales fall back to their language
+        assertSame(CountryCatalog.getInstance(Locale.ENGLISH),
+                CountryCatalog.getInstance(new Locale("en", "XX", "unknown")));
+    }
+
+    @Test
+    public void testCountriesSortedByName() {
+        CountryCatalog catalog = CountryCatalog.getInstance(Locale.US);
+        List<LabelValue> countries = catalog.getCountries();
+        assertFalse(countries.isEmpty());
+        assertEquals(countries.size(), catalog.getCodes().size());
+
+        Collator collator = Collator.getInstance(Locale.US);
+        for (int i = 1; i < countries.size(); i++) {
+            assertTrue(collator.compare(countries.get(i - 1).getLabel(), countries.get(i).getLabel()) <= 0);
+        }
+        assertEquals("United States", catalog.getName("US"));
+        assertEquals("US", catalog.getCodesByName().get("United States"));
+    }
+
+    @Test
+    public void testOptions() {
+        CountryCatalog catalog = CountryCatalog.getInstance(Locale.US);
+        assertTrue(catalog.getOptions().contains("<option value=\"US\">United States</option>"));
+        assertFalse(catalog.getOptions().contains("selected"));
+
+        String options = catalog.getOptions("US");
+        assertTrue(options.contains("<option value=\"US\" selected=\"selected\">United States</option>"));
+        assertEquals(catalog.getOptions().length() + " selected=\"selected\"".length(), options.length());
+        assertSame(catalog.getOptions(), catalog.getOptions("nowhere"));
+    }
+}
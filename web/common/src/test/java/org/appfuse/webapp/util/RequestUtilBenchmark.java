@@ -0,0 +1,69 @@
+package org.appfuse.webapp.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the application's URL with {@link RequestUtil#getAppURL}, as the signup and password
+ * recovery pages do for the links they mail, on the default port and on a non-default one.
+ * The GC profiler reports bytes allocated per URL (gc.alloc.rate.norm).
+ * Run after <code>mvn test-compile</code> with:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.appfuse.webapp.util.RequestUtilBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RequestUtilBenchmark {
+    private MockHttpServletRequest defaultPort;
+    private MockHttpServletRequest otherPort;
+
+    @Setup
+    public void setUp() {
+        defaultPort = new MockHttpServletRequest("GET", "/app/signup");
+        defaultPort.setScheme("https");
+        defaultPort.setServerName("www.appfuse.org");
+        defaultPort.setServerPort(443);
+        defaultPort.setContextPath("/app");
+
+        otherPort = new MockHttpServletRequest("GET", "/app/signup");
+        otherPort.setServerName("localhost");
+        otherPort.setServerPort(8080);
+        otherPort.setContextPath("/app");
+    }
+
+    @Benchmark
+    public String getAppURLOnDefaultPort() {
+        return RequestUtil.getAppURL(defaultPort);
+    }
+
+    @Benchmark
+    public String getAppURLOnOtherPort() {
+        return RequestUtil.getAppURL(otherPort);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(RequestUtilBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -112,17 +112,23 @@ public abstract class AbstractBaseRequest implements ServletContextAware, CxfMes
      * 
      * @param user
      *            the user to send a message to.
+     * @param subject
+     *            the subject of the e-mail.
      * @param msg
      *            the message to send.
      * @param url
      *            the URL of the application.
      */
-    protected void sendUserMessage(final User user, final String templateName, final String msg, final String url) {
+    protected void sendUserMessage(final User user, final String subject, final String templateName, final String msg,
+                                   final String url) {
         if (log.isDebugEnabled()) {
             log.debug("sending e-mail to user [" + user.getEmail() + "]...");
         }
 
-        message.setTo(user.getFullName() + "<" + user.getEmail() + ">");
+        // the template is shared by concurrent requests, so each mail gets its own copy
+        final SimpleMailMessage email = new SimpleMailMessage(message);
+        email.setTo(user.getFullName() + "<" + user.getEmail() + ">");
+        email.setSubject(subject);
 
         final Map<String, Serializable> model = new HashMap<String, Serializable>();
         model.put("user", user);
@@ -133,7 +139,7 @@ public abstract class AbstractBaseRequest implements ServletContextAware, CxfMes
         // model.put("bundle", getTexts());
         model.put("message", msg);
         model.put("applicationURL", url);
-        mailEngine.sendMessage(message, templateName, model);
+        mailEngine.sendMessage(email, templateName, model);
     }
 
     protected String getCurrentUsername() {
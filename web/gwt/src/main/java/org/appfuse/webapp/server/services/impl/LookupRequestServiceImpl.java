@@ -3,9 +3,6 @@
  */
 package org.appfuse.webapp.server.services.impl;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 
@@ -13,6 +10,7 @@ import org.appfuse.model.LabelValue;
 import org.appfuse.service.RoleManager;
 import org.appfuse.webapp.listener.StartupListener;
 import org.appfuse.webapp.server.services.LookupRequestService;
+import org.appfuse.webapp.util.CountryCatalog;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.security.access.annotation.Secured;
@@ -54,32 +52,6 @@ public class LookupRequestServiceImpl extends AbstractBaseRequest implements Loo
     }
 
     protected List<LabelValue> buildCountryList(final Locale locale) {
-        final String EMPTY = "";
-        final Locale[] available = Locale.getAvailableLocales();
-
-        List<LabelValue> countries = new ArrayList<LabelValue>();
-
-        for (int i = 0; i < available.length; i++) {
-            final String iso = available[i].getCountry();
-            final String name = available[i].getDisplayCountry(locale);
-
-            if (!EMPTY.equals(iso) && !EMPTY.equals(name)) {
-                LabelValue country = new LabelValue(name, iso);
-
-                if (!countries.contains(country)) {
-                    countries.add(new LabelValue(name, iso));
-                }
-            }
-        }
-
-        Collections.sort(countries, new Comparator<LabelValue>() {
-            @Override
-            public int compare(LabelValue arg0, LabelValue arg1) {
-                return arg0.getLabel().compareTo(arg1.getLabel());
-
-            }
-        });
-
-        return countries;
+        return CountryCatalog.getInstance(locale).getCountries();
     }
 }
\ No newline at end of file
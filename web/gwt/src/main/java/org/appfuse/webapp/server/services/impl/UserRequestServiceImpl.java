@@ -1,10 +1,8 @@
 package org.appfuse.webapp.server.services.impl;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
-import java.util.Set;
 
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletRequest;
@@ -20,14 +18,15 @@ import org.appfuse.service.RoleManager;
 import org.appfuse.service.UserExistsException;
 import org.appfuse.service.UserManager;
 import org.appfuse.webapp.client.proxies.RoleProxy;
-import org.appfuse.webapp.listener.UserCounterListener;
+import org.appfuse.webapp.listener.ActiveUser;
+import org.appfuse.webapp.listener.ActiveUserRegistry;
 import org.appfuse.webapp.server.services.UserRequestService;
 import org.appfuse.webapp.server.services.UsersSearchCriteria;
 import org.appfuse.webapp.util.RequestUtil;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.support.PropertyComparator;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -107,10 +106,9 @@ public class UserRequestServiceImpl extends AbstractBaseRequest implements UserR
 
         // Send an account information e-mail
         final Locale locale = LocaleContextHolder.getLocale();
-        message.setSubject(getText("signup.email.subject", locale));
-
         try {
-            sendUserMessage(user, "accountCreated.vm", getText("signup.email.message", locale), RequestUtil.getAppURL(getServletRequest()));
+            sendUserMessage(user, getText("signup.email.subject", locale), "accountCreated.vm",
+                    getText("signup.email.message", locale), RequestUtil.getAppURL(getServletRequest()));
         } catch (final MailException me) {
             // saveError(request, me.getMostSpecificCause().getMessage());
             throw me;
@@ -181,7 +179,7 @@ public class UserRequestServiceImpl extends AbstractBaseRequest implements UserR
     @Override
     public long countUsers(final UsersSearchCriteria searchCriteria) {
         final String searchTerm = searchCriteria != null ? searchCriteria.getSearchTerm() : null;
-        return userManager.search(searchTerm).size();
+        return userManager.searchCount(searchTerm);
     }
 
     /**
@@ -206,15 +204,9 @@ public class UserRequestServiceImpl extends AbstractBaseRequest implements UserR
     @Override
     public List<User> searchUsers(final UsersSearchCriteria searchCriteria, final int firstResult, final int maxResults, final String sortProperty, final boolean ascending) {
         final String searchTerm = searchCriteria != null ? searchCriteria.getSearchTerm() : null;
-        final List<User> users = userManager.search(searchTerm);
-        if (StringUtils.isNotEmpty(sortProperty)) {
-            log.debug(String.format("Sorting usersList by property='%s', ascending='%s'", sortProperty, ascending));
-            Collections.sort(users, new PropertyComparator(sortProperty, true, ascending));
-        }
-        final int fromIndex = Math.min(firstResult, users.size());
-        final int toIndex = Math.min(fromIndex + maxResults, users.size());
-        log.debug(String.format("searchUsers(%d,%d) %d-%d [%d]", firstResult, maxResults, fromIndex, toIndex, users.size()));
-        return users.subList(fromIndex, toIndex);
+        log.debug(String.format("searchUsers(%d,%d) by property='%s', ascending='%s'", firstResult, maxResults, sortProperty, ascending));
+        return userManager.search(searchTerm, firstResult, maxResults,
+                StringUtils.isNotEmpty(sortProperty) ? sortProperty : null, ascending);
     }
 
     /**
@@ -251,13 +243,14 @@ public class UserRequestServiceImpl extends AbstractBaseRequest implements UserR
             msg.append("Your password hint is: ").append(user.getPasswordHint());
             msg.append("\n\nLogin at: ").append(RequestUtil.getAppURL(getServletRequest()));
 
-            message.setTo(user.getEmail());
+            final SimpleMailMessage email = new SimpleMailMessage(message);
+            email.setTo(user.getEmail());
             final String subject =
                     '[' + getText("webapp.name", locale) + "] " +
                             getText("user.passwordHint", locale);
-            message.setSubject(subject);
-            message.setText(msg.toString());
-            mailEngine.send(message);
+            email.setSubject(subject);
+            email.setText(msg.toString());
+            mailEngine.send(email);
             return user.getFullName();// XXX disabling returning
                                       // user.getEmail();
         } catch (final UsernameNotFoundException e) {
@@ -329,11 +322,18 @@ public class UserRequestServiceImpl extends AbstractBaseRequest implements UserR
 
     /**
      * 
-     * @return
+     * @return detached users holding the username, names and email of each active user
      */
     @Override
     public List<User> getActiveUsers() {
-        return new ArrayList((Set) getServletContext().getAttribute(UserCounterListener.USERS_KEY));
+        List<User> users = new ArrayList<User>();
+        ActiveUserRegistry registry = ActiveUserRegistry.getInstance(getServletContext());
+        if (registry != null) {
+            for (ActiveUser activeUser : registry.getUsers()) {
+                users.add(activeUser.toUser());
+            }
+        }
+        return users;
     }
 
     /**
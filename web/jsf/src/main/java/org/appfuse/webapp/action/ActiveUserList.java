@@ -1,12 +1,11 @@
 package org.appfuse.webapp.action;
 
-import org.appfuse.model.User;
-import org.appfuse.webapp.listener.UserCounterListener;
+import org.appfuse.webapp.listener.ActiveUser;
+import org.appfuse.webapp.listener.ActiveUserRegistry;
 
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Set;
 
 public class ActiveUserList extends BasePage implements Serializable {
     private static final long serialVersionUID = -2725378005612769815L;
@@ -15,13 +14,12 @@ public class ActiveUserList extends BasePage implements Serializable {
         setSortColumn("username");
     }
     
-    @SuppressWarnings("unchecked")
-    public List getUsers() {
-        Set users = (Set) getServletContext().getAttribute(UserCounterListener.USERS_KEY);
-        if (users != null) {
-            return sort(new ArrayList<User>(users));
+    public List<ActiveUser> getUsers() {
+        ActiveUserRegistry registry = ActiveUserRegistry.getInstance(getServletContext());
+        if (registry != null) {
+            return registry.getUsers(getSortColumn(), isAscending(), 0, Integer.MAX_VALUE);
         } else {
-            return new ArrayList();
+            return new ArrayList<ActiveUser>();
         }
     }
 }
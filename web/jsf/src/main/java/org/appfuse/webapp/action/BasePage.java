@@ -9,6 +9,8 @@ import org.appfuse.Constants;
 import org.appfuse.model.User;
 import org.appfuse.service.MailEngine;
 import org.appfuse.service.UserManager;
+import org.appfuse.webapp.util.CountryCatalog;
+import org.appfuse.webapp.util.FlashMessages;
 import org.springframework.mail.SimpleMailMessage;
 
 import javax.faces.context.FacesContext;
@@ -18,7 +20,6 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 import java.io.Serializable;
 import java.text.MessageFormat;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
@@ -51,8 +52,7 @@ public class BasePage {
     }
 
     public Map getCountries() {
-        CountryModel model = new CountryModel();
-        return model.getCountries(getRequest().getLocale());
+        return CountryCatalog.getInstance(getRequest().getLocale()).getCodesByName();
     }
 
     public String getBundleName() {
@@ -95,38 +95,21 @@ public class BasePage {
         }
     }
 
-    @SuppressWarnings("unchecked")
     protected void addMessage(String key, Object arg) {
-        List<String> messages = (List) getSession().getAttribute("messages");
-
-        if (messages == null) {
-            messages = new ArrayList<String>();
-        }
-
-        messages.add(getText(key, arg));
-        getSession().setAttribute("messages", messages);
+        FlashMessages.add(getRequest(), "messages", getText(key, arg));
     }
 
     protected void addMessage(String key) {
         addMessage(key, null);
     }
 
-    @SuppressWarnings("unchecked")
     protected void addError(String key, Object arg) {
-        List<String> errors = (List) getSession().getAttribute("errors");
-
-        if (errors == null) {
-            errors = new ArrayList<String>();
-        }
-
         // if key contains a space, don't look it up, it's likely a raw message
         if (key.contains(" ") && arg == null) {
-            errors.add(key);
+            FlashMessages.add(getRequest(), "errors", key);
         } else {
-            errors.add(getText(key, arg));
+            FlashMessages.add(getRequest(), "errors", getText(key, arg));
         }
-
-        getSession().setAttribute("errors", errors);
     }
 
     protected void addError(String key) {
@@ -135,10 +118,10 @@ public class BasePage {
     
     /**
      * Convenience method for unit tests.
-     * @return boolean indicator of an "errors" attribute in the session
+     * @return boolean indicator of an "errors" attribute in the request or session
      */
     public boolean hasErrors() {
-        return (getSession().getAttribute("errors") != null);
+        return (FlashMessages.get(getRequest(), "errors") != null);
     }
 
     /**
@@ -193,15 +176,19 @@ public class BasePage {
     /**
      * Convenience message to send messages to users, includes app URL as footer.
      * @param user the user to send the message to
+     * @param subject the subject of the e-mail
      * @param msg the message to send
      * @param url the application's URL
      */
-    protected void sendUserMessage(User user, String msg, String url) {
+    protected void sendUserMessage(User user, String subject, String msg, String url) {
         if (log.isDebugEnabled()) {
             log.debug("sending e-mail to user [" + user.getEmail() + "]...");
         }
 
-        message.setTo(user.getFullName() + "<" + user.getEmail() + ">");
+        // the template is shared by concurrent requests, so each mail gets its own copy
+        SimpleMailMessage email = new SimpleMailMessage(message);
+        email.setTo(user.getFullName() + "<" + user.getEmail() + ">");
+        email.setSubject(subject);
 
         Map<String, Serializable> model = new HashMap<String, Serializable>();
         model.put("user", user);
@@ -212,7 +199,7 @@ public class BasePage {
         // model.put("bundle", getTexts());
         model.put("message", msg);
         model.put("applicationURL", url);
-        mailEngine.sendMessage(message, templateName, model);
+        mailEngine.sendMessage(email, templateName, model);
     }
 
     public void setMailEngine(MailEngine mailEngine) {
@@ -3,6 +3,7 @@ package org.appfuse.webapp.action;
 import org.appfuse.model.User;
 import org.appfuse.webapp.util.RequestUtil;
 import org.springframework.mail.MailException;
+import org.springframework.mail.SimpleMailMessage;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 
 /**
@@ -46,11 +47,12 @@ public class PasswordHint extends BasePage {
             msg.append("Your password hint is: ").append(user.getPasswordHint());
             msg.append("\n\nLogin at: ").append(RequestUtil.getAppURL(getRequest()));
 
-            message.setTo(user.getEmail());
+            SimpleMailMessage email = new SimpleMailMessage(message);
+            email.setTo(user.getEmail());
             String subject = '[' + getText("webapp.name") + "] " + getText("user.passwordHint");
-            message.setSubject(subject);
-            message.setText(msg.toString());
-            mailEngine.send(message);
+            email.setSubject(subject);
+            email.setText(msg.toString());
+            mailEngine.send(email);
             
             addMessage("login.passwordHint.sent", 
                        new Object[] { username, user.getEmail() });
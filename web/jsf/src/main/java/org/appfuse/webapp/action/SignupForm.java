@@ -66,10 +66,8 @@ public class SignupForm extends BasePage implements Serializable {
         SecurityContextHolder.getContext().setAuthentication(auth);
 
         // Send an account information e-mail
-        message.setSubject(getText("signup.email.subject"));
-
         try {
-            sendUserMessage(user, getText("signup.email.message"),
+            sendUserMessage(user, getText("signup.email.subject"), getText("signup.email.message"),
                     RequestUtil.getAppURL(getRequest()));
         } catch (MailException me) {
             addError(me.getMostSpecificCause().getMessage());
@@ -158,8 +158,9 @@ public class UserForm extends BasePage implements Serializable {
                 addMessage("user.added", user.getFullName());
 
                 try {
-                    sendUserMessage(user, getText("newuser.email.message",
-                                    user.getFullName()), RequestUtil.getAppURL(getRequest()));
+                    sendUserMessage(user, getText("signup.email.subject"),
+                            getText("newuser.email.message", user.getFullName()),
+                            RequestUtil.getAppURL(getRequest()));
                 } catch (MailException me) {
                     addError(me.getCause().getLocalizedMessage());
                 }
@@ -7,6 +7,7 @@ import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 import java.io.IOException;
 
 /**
@@ -23,22 +24,27 @@ public class MessageFilter implements Filter {
     throws IOException, ServletException {
         HttpServletRequest request = (HttpServletRequest) req;
 
-        // grab messages from the session and put them into request
-        // this is so they're not lost in a redirect
-        Object messages = request.getSession().getAttribute("messages");
+        // without a session, messages come with FlashMessageFilter
+        HttpSession session = request.getSession(false);
 
-        if (messages != null) {
-            request.setAttribute("messages", messages);
-            request.getSession().removeAttribute("messages");
-        }
-        
-        // grab errors from the session and put them into request
-        // this is so they're not lost in a redirect
-        Object errors = request.getSession().getAttribute("errors");
-
-        if (errors != null) {
-            request.setAttribute("errors", errors);
-            request.getSession().removeAttribute("errors");
+        if (session != null) {
+            // grab messages from the session and put them into request
+            // this is so they're not lost in a redirect
+            Object messages = session.getAttribute("messages");
+
+            if (messages != null) {
+                request.setAttribute("messages", messages);
+                session.removeAttribute("messages");
+            }
+
+            // grab errors from the session and put them into request
+            // this is so they're not lost in a redirect
+            Object errors = session.getAttribute("errors");
+
+            if (errors != null) {
+                request.setAttribute("errors", errors);
+                session.removeAttribute("errors");
+            }
         }
 
         chain.doFilter(req, res);
@@ -16,5 +16,5 @@
             <c:out value="${msg}"/><br />
         </c:forEach>
     </div>
-    <c:remove var="messages" scope="session"/>
+    <c:remove var="messages"/>
 </c:if>
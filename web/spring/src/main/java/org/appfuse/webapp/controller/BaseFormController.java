@@ -6,6 +6,7 @@ import org.appfuse.Constants;
 import org.appfuse.model.User;
 import org.appfuse.service.MailEngine;
 import org.appfuse.service.UserManager;
+import org.appfuse.webapp.util.FlashMessages;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.propertyeditors.CustomDateEditor;
 import org.springframework.beans.propertyeditors.CustomNumberEditor;
@@ -22,10 +23,8 @@ import javax.servlet.ServletContext;
 import javax.servlet.http.HttpServletRequest;
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 
@@ -70,26 +69,12 @@ public class BaseFormController implements ServletContextAware {
         return this.userManager;
     }
 
-    @SuppressWarnings("unchecked")
     public void saveError(HttpServletRequest request, String error) {
-        List errors = (List) request.getSession().getAttribute(ERRORS_MESSAGES_KEY);
-        if (errors == null) {
-            errors = new ArrayList();
-        }
-        errors.add(error);
-        request.getSession().setAttribute(ERRORS_MESSAGES_KEY, errors);
+        FlashMessages.add(request, ERRORS_MESSAGES_KEY, error);
     }
     
-    @SuppressWarnings("unchecked")
     public void saveMessage(HttpServletRequest request, String msg) {
-        List messages = (List) request.getSession().getAttribute(MESSAGES_KEY);
-
-        if (messages == null) {
-            messages = new ArrayList();
-        }
-
-        messages.add(msg);
-        request.getSession().setAttribute(MESSAGES_KEY, messages);
+        FlashMessages.add(request, MESSAGES_KEY, msg);
     }
 
     /**
@@ -171,15 +156,19 @@ public class BaseFormController implements ServletContextAware {
     /**
      * Convenience message to send messages to users, includes app URL as footer.
      * @param user the user to send a message to.
+     * @param subject the subject of the e-mail.
      * @param msg the message to send.
      * @param url the URL of the application.
      */
-    protected void sendUserMessage(User user, String msg, String url) {
+    protected void sendUserMessage(User user, String subject, String msg, String url) {
         if (log.isDebugEnabled()) {
             log.debug("sending e-mail to user [" + user.getEmail() + "]...");
         }
 
-        message.setTo(user.getFullName() + "<" + user.getEmail() + ">");
+        // the template is shared by concurrent requests, so each mail gets its own copy
+        SimpleMailMessage email = new SimpleMailMessage(message);
+        email.setTo(user.getFullName() + "<" + user.getEmail() + ">");
+        email.setSubject(subject);
 
         Map<String, Serializable> model = new HashMap<String, Serializable>();
         model.put("user", user);
@@ -190,7 +179,7 @@ public class BaseFormController implements ServletContextAware {
         // model.put("bundle", getTexts());
         model.put("message", msg);
         model.put("applicationURL", url);
-        mailEngine.sendMessage(message, templateName, model);
+        mailEngine.sendMessage(email, templateName, model);
     }
 
     @Autowired
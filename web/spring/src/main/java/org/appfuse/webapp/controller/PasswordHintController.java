@@ -5,6 +5,7 @@ import org.apache.commons.logging.LogFactory;
 import org.appfuse.model.User;
 import org.appfuse.service.MailEngine;
 import org.appfuse.service.UserManager;
+import org.appfuse.webapp.util.FlashMessages;
 import org.appfuse.webapp.util.RequestUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.MessageSource;
@@ -19,8 +20,6 @@ import org.springframework.web.servlet.ModelAndView;
 import org.springframework.web.servlet.view.RedirectView;
 
 import javax.servlet.http.HttpServletRequest;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Simple class to retrieve and send a password hint to users.
@@ -81,12 +80,13 @@ public class PasswordHintController {
             msg.append("Your password hint is: ").append(user.getPasswordHint());
             msg.append("\n\nLogin at: ").append(RequestUtil.getAppURL(request));
 
-            message.setTo(user.getEmail());
+            SimpleMailMessage email = new SimpleMailMessage(message);
+            email.setTo(user.getEmail());
             String subject = '[' + text.getMessage("webapp.name") + "] " + 
                              text.getMessage("user.passwordHint");
-            message.setSubject(subject);
-            message.setText(msg.toString());
-            mailEngine.send(message);
+            email.setSubject(subject);
+            email.setText(msg.toString());
+            mailEngine.send(email);
 
             saveMessage(request, text.getMessage("login.passwordHint.sent", new Object[] { username, user.getEmail() }));
         } catch (UsernameNotFoundException e) {
@@ -100,24 +100,12 @@ public class PasswordHintController {
         return new ModelAndView(new RedirectView(request.getContextPath()));
     }
 
-    @SuppressWarnings("unchecked")
     public void saveError(HttpServletRequest request, String error) {
-        List errors = (List) request.getSession().getAttribute("errors");
-        if (errors == null) {
-            errors = new ArrayList();
-        }
-        errors.add(error);
-        request.getSession().setAttribute("errors", errors);
+        FlashMessages.add(request, BaseFormController.ERRORS_MESSAGES_KEY, error);
     }
 
     // this method is also in BaseForm Controller
-    @SuppressWarnings("unchecked")
     public void saveMessage(HttpServletRequest request, String msg) {
-        List messages = (List) request.getSession().getAttribute(BaseFormController.MESSAGES_KEY);
-        if (messages == null) {
-            messages = new ArrayList();
-        }
-        messages.add(msg);
-        request.getSession().setAttribute(BaseFormController.MESSAGES_KEY, messages);
+        FlashMessages.add(request, BaseFormController.MESSAGES_KEY, msg);
     }
 }
@@ -3,6 +3,7 @@ package org.appfuse.webapp.controller;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.appfuse.webapp.listener.StartupListener;
+import org.appfuse.webapp.util.FlashMessages;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
@@ -11,8 +12,6 @@ import org.springframework.web.servlet.ModelAndView;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.PrintWriter;
-import java.util.ArrayList;
-import java.util.List;
 
 
 /**
@@ -31,7 +30,6 @@ public class ReloadController {
     private transient final Log log = LogFactory.getLog(ReloadController.class);
 
     @RequestMapping(method = RequestMethod.GET)
-    @SuppressWarnings("unchecked")
     public ModelAndView handleRequest(HttpServletRequest request,
                                       HttpServletResponse response)
     throws Exception {
@@ -45,14 +43,7 @@ public class ReloadController {
 
         if (referer != null) {
             log.info("reload complete, reloading user back to: " + referer);
-            List<String> messages = (List) request.getSession().getAttribute(BaseFormController.MESSAGES_KEY);
-
-            if (messages == null) {
-                messages = new ArrayList();
-            }
-
-            messages.add("Reloading options completed successfully.");
-            request.getSession().setAttribute(BaseFormController.MESSAGES_KEY, messages);
+            FlashMessages.add(request, BaseFormController.MESSAGES_KEY, "Reloading options completed successfully.");
 
             response.sendRedirect(response.encodeRedirectURL(referer));
             return null;
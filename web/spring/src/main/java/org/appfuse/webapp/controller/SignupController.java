@@ -107,10 +107,9 @@ public class SignupController extends BaseFormController {
         }
 
         // Send an account information e-mail
-        message.setSubject(getText("signup.email.subject", locale));
-
         try {
-            sendUserMessage(user, getText("signup.email.message", locale), RequestUtil.getAppURL(request));
+            sendUserMessage(user, getText("signup.email.subject", locale), getText("signup.email.message", locale),
+                    RequestUtil.getAppURL(request));
         } catch (final MailException me) {
             saveError(request, me.getMostSpecificCause().getMessage());
         }
@@ -159,12 +159,11 @@ public class UserFormController extends BaseFormController {
                     saveMessage(request, getText("user.added", user.getFullName(), locale));
 
                     // Send an account information e-mail
-                    message.setSubject(getText("signup.email.subject", locale));
-
                     try {
                         final String resetPasswordUrl = getUserManager().buildRecoveryPasswordUrl(user,
                                 UpdatePasswordController.RECOVERY_PASSWORD_TEMPLATE);
-                        sendUserMessage(user, getText("newuser.email.message", user.getFullName(), locale),
+                        sendUserMessage(user, getText("signup.email.subject", locale),
+                                getText("newuser.email.message", user.getFullName(), locale),
                                 RequestUtil.getAppURL(request) + resetPasswordUrl);
                     } catch (final MailException me) {
                         saveError(request, me.getCause().getLocalizedMessage());
@@ -7,21 +7,21 @@ import org.apache.commons.validator.Form;
 import org.apache.commons.validator.ValidatorResources;
 import org.springframework.beans.factory.BeanFactoryUtils;
 import org.springframework.beans.factory.NoSuchBeanDefinitionException;
-import org.springframework.context.MessageSource;
 import org.springframework.context.NoSuchMessageException;
+import org.springframework.validation.BindingResult;
 import org.springframework.validation.Errors;
 import org.springframework.web.context.WebApplicationContext;
 import org.springframework.web.context.support.WebApplicationContextUtils;
-import org.springframework.web.servlet.DispatcherServlet;
-import org.springframework.web.servlet.support.RequestContext;
+import org.springframework.web.servlet.support.RequestContextUtils;
 import org.springmodules.validation.commons.ValidatorFactory;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.tagext.TagSupport;
 import java.io.IOException;
-import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 
 /**
@@ -31,12 +31,16 @@ import java.util.Locale;
  * <p/>
  * <p>It is designed to be used as follows:
  * <pre>&lt;tag:label key="userForm.username"/&gt;</pre>
+ * <p/>
+ * <p>Whether a field is required and its label text are worked out once per
+ * key and locale, until the application context is refreshed. Only the
+ * validation errors are checked on every request.
  *
  * @jsp.tag name="label" bodycontent="empty"
  */
 public class LabelTag extends TagSupport {
     private static final long serialVersionUID = -5310144023136517119L;
-    protected RequestContext requestContext;
+    private static final ConcurrentMap<String, Labels> LABELS = new ConcurrentHashMap<>();
     protected transient final Log log = LogFactory.getLog(LabelTag.class);
     protected String key = null;
     protected String styleClass = null;
@@ -44,96 +48,59 @@ public class LabelTag extends TagSupport {
     protected boolean colon = false;
 
     public int doStartTag() throws JspException {
+        HttpServletRequest request = (HttpServletRequest) pageContext.getRequest();
 
-        try {
-            this.requestContext =
-                    new RequestContext((HttpServletRequest) this.pageContext.getRequest());
-        } catch (RuntimeException ex) {
-            throw ex;
-        } catch (Exception ex) {
-            pageContext.getServletContext().log("Exception in custom tag", ex);
-        }
-
-        // Look up this key to see if its a field of the current form
-        boolean requiredField = false;
-        boolean validationError = false;
-
-        ValidatorResources resources = getValidatorResources();
-
-        Locale locale = pageContext.getRequest().getLocale();
+        Locale locale = request.getLocale();
 
         if (locale == null) {
             locale = Locale.getDefault();
         }
 
-        // get the name of the bean from the key
-        String formName = key.substring(0, key.indexOf('.'));
-        String fieldName = key.substring(formName.length() + 1);
-
-        if (resources != null) {
-            Form form = resources.getForm(locale, formName);
-
-            if (form != null) {
-                Field field = form.getField(fieldName);
-
-                if (field != null) {
-                    if (field.isDependency("required") || field.isDependency("validwhen")) {
-                        requiredField = true;
-                    }
-                }
-            }
-        }
-
-        Errors errors = requestContext.getErrors(formName, false);
-        List fes = null;
-        if (errors != null) {
-            fes = errors.getFieldErrors(fieldName);
-            //String errorMsg = getErrorMessages(fes);
+        WebApplicationContext ctx = RequestContextUtils.getWebApplicationContext(request,
+                pageContext.getServletContext());
+        Labels labels = getLabels(ctx);
+        Label label = labels.get(key, locale);
+        if (label == null) {
+            label = createLabel(ctx, labels, key, locale);
+            labels.put(key, locale, label);
         }
 
-        if (fes != null && fes.size() > 0) {
-            validationError = true;
-        }
-
-        // Retrieve the message string we are looking for
-        String message = null;
-        try {
-            message = getMessageSource().getMessage(key, null, locale);
-        } catch (NoSuchMessageException nsm) {
-            message = "???" + key + "???";
+        // Only the errors differ from one request to the next
+        boolean validationError = false;
+        Object errors = request.getAttribute(label.errorsAttribute);
+        if (errors instanceof Errors) {
+            validationError = ((Errors) errors).hasFieldErrors(label.fieldName);
         }
 
         String cssClass = null;
         if (styleClass != null) {
             cssClass = styleClass;
-        } else if (requiredField) {
+        } else if (label.required) {
             cssClass = "required";
         }
 
         String cssErrorClass = (errorClass != null) ? errorClass : "error";
-        StringBuilder label = new StringBuilder();
+        StringBuilder html = new StringBuilder();
 
-        if ((message == null) || "".equals(message.trim())) {
-            label.append("");
-        } else {
-            label.append("<label for=\"").append(fieldName).append("\"");
+        if ((label.message != null) && !"".equals(label.message.trim())) {
+            html.append("<label for=\"").append(label.fieldName).append("\"");
 
             if (cssClass != null) {
-                label.append(" class=\"").append(cssClass);
+                html.append(" class=\"").append(cssClass);
                 if (validationError) {
-                    label.append(" ").append(cssErrorClass);
+                    html.append(" ").append(cssErrorClass);
                 }
             }
 
-            label.append("\">").append(message);
-            label.append((requiredField) ? " <span class=\"required\">*</span>" : "");
-            label.append((colon) ? ":" : "");
-            label.append("</label>");
+            html.append("\">").append(label.message);
+            html.append((label.required) ? " <span class=\"required\">*</span>" : "");
+            html.append((colon) ? ":" : "");
+            html.append("</label>");
         }
 
         // Print the retrieved message to our output writer
         try {
-            writeMessage(label.toString());
+            writeMessage(html.toString());
         } catch (IOException io) {
             io.printStackTrace();
             throw new JspException("Error writing label: " + io.getMessage());
@@ -210,7 +177,6 @@ public class LabelTag extends TagSupport {
         colon = false;
         styleClass = null;
         errorClass = null;
-        requestContext = null;
     }
 
 /**
@@ -223,12 +189,24 @@ public final int doEndTag()
         colon = false;
         styleClass = null;
         errorClass = null;
-        requestContext = null;
         return 1;
     
 }
 
 
+    /**
+     * Get the labels cached for a context, starting over when the context
+     * has been refreshed since they were cached.
+     */
+    private static Labels getLabels(WebApplicationContext ctx) {
+        Labels labels = LABELS.get(ctx.getId());
+        if (labels == null || !labels.isFor(ctx)) {
+            labels = new Labels(ctx);
+            LABELS.put(ctx.getId(), labels);
+        }
+        return labels;
+    }
+
     /**
      * Get the validator resources from a ValidatorFactory defined in the
      * web application context or one of its parent contexts.
@@ -236,29 +214,122 @@ public final int doEndTag()
      *
      * @return ValidatorResources from a ValidatorFactory.
      */
-    private ValidatorResources getValidatorResources() {
+    private ValidatorResources getValidatorResources(WebApplicationContext ctx) {
         // look in servlet beans definition (i.e. action-servlet.xml)
-        WebApplicationContext ctx = (WebApplicationContext) pageContext.getRequest()
-                .getAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE);
         ValidatorFactory factory = null;
         try {
-            factory = (ValidatorFactory) BeanFactoryUtils
+            factory = BeanFactoryUtils
                     .beanOfTypeIncludingAncestors(ctx, ValidatorFactory.class, true, true);
         } catch (NoSuchBeanDefinitionException e) {
             // look in main application context (i.e. applicationContext.xml)
             ctx = WebApplicationContextUtils
                     .getRequiredWebApplicationContext(pageContext.getServletContext());
-            factory = (ValidatorFactory) BeanFactoryUtils
+            factory = BeanFactoryUtils
                     .beanOfTypeIncludingAncestors(ctx, ValidatorFactory.class, true, true);
         }
         return factory.getValidatorResources();
     }
 
+    /**
+     * Work out whether a field is required and the text of its label. The
+     * application context itself is used for message resolution.
+     */
+    private Label createLabel(WebApplicationContext ctx, Labels labels, String key, Locale locale) {
+        // get the name of the bean from the key
+        String formName = key.substring(0, key.indexOf('.'));
+        String fieldName = key.substring(formName.length() + 1);
+
+        ValidatorResources resources = labels.resources;
+        if (resources == null) {
+            resources = getValidatorResources(ctx);
+            labels.resources = resources;
+        }
+
+        // Look up this key to see if its a field of the current form
+        boolean requiredField = false;
+
+        if (resources != null) {
+            Form form = resources.getForm(locale, formName);
+
+            if (form != null) {
+                Field field = form.getField(fieldName);
+
+                if (field != null) {
+                    if (field.isDependency("required") || field.isDependency("validwhen")) {
+                        requiredField = true;
+                    }
+                }
+            }
+        }
+
+        // Retrieve the message string we are looking for
+        String message = null;
+        try {
+            message = ctx.getMessage(key, null, locale);
+        } catch (NoSuchMessageException nsm) {
+            message = "???" + key + "???";
+        }
+
+        return new Label(formName, fieldName, requiredField, message);
+    }
+
+    /**
+     * What a label shows for a key in a locale, minus the error styling.
+     */
+    private static final class Label {
+        private final String fieldName;
+        private final String errorsAttribute;
+        private final boolean required;
+        private final String message;
+
+        private Label(String formName, String fieldName, boolean required, String message) {
+            this.fieldName = fieldName;
+            this.errorsAttribute = BindingResult.MODEL_KEY_PREFIX + formName;
+            this.required = required;
+            this.message = message;
+        }
+    }
 
     /**
-     * Use the application context itself for default message resolution.
+     * The labels of one application context, by locale and key. Only so many
+     * locales are kept, as they come from the request.
      */
-    private MessageSource getMessageSource() {
-        return requestContext.getWebApplicationContext();
+    private static final class Labels {
+        private static final int MAX_LOCALES = 32;
+
+        private final WebApplicationContext context;
+        private final long startupDate;
+        private final ConcurrentMap<Locale, ConcurrentMap<String, Label>> byLocale =
+                new ConcurrentHashMap<>();
+        private volatile ValidatorResources resources;
+
+        private Labels(WebApplicationContext context) {
+            this.context = context;
+            this.startupDate = context.getStartupDate();
+        }
+
+        private boolean isFor(WebApplicationContext ctx) {
+            return context == ctx && startupDate == ctx.getStartupDate();
+        }
+
+        private Label get(String key, Locale locale) {
+            ConcurrentMap<String, Label> labels = byLocale.get(locale);
+            return (labels != null) ? labels.get(key) : null;
+        }
+
+        private void put(String key, Locale locale, Label label) {
+            ConcurrentMap<String, Label> labels = byLocale.get(locale);
+            if (labels == null) {
+                if (byLocale.size() >= MAX_LOCALES) {
+                    return;
+                }
+                labels = new ConcurrentHashMap<>();
+                ConcurrentMap<String, Label> existing = byLocale.putIfAbsent(locale, labels);
+                if (existing != null) {
+                    labels = existing;
+                }
+            }
+            labels.put(key, label);
+        }
     }
 }
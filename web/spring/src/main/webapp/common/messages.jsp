@@ -17,5 +17,5 @@
             <c:out value="${msg}"/><br />
         </c:forEach>
     </div>
-    <c:remove var="successMessages" scope="session"/>
+    <c:remove var="successMessages"/>
 </c:if>
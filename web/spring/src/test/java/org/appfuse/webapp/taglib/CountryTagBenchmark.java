@@ -0,0 +1,81 @@
+package org.appfuse.webapp.taglib;
+
+import org.appfuse.model.LabelValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockPageContext;
+import org.springframework.mock.web.MockServletContext;
+
+import javax.servlet.jsp.JspException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds the list of countries (about 150 of them) the user form's country drop-down is made of,
+ * and renders the drop-down with <code>&lt;appfuse:country/&gt;</code>, in English and in French.
+ * The GC profiler reports bytes allocated per list or drop-down (gc.alloc.rate.norm).
+ * Run after <code>mvn test-compile</code> with:
+ * <pre>
+ * mvn exec:java -Dexec.classpathScope=test -Dexec.mainClass=org.appfuse.webapp.taglib.CountryTagBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CountryTagBenchmark {
+    @Param({"en", "fr"})
+    private String language;
+
+    private Locale locale;
+    private CountryTag tag;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        locale = new Locale(language);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addPreferredLocale(locale);
+        response = new MockHttpServletResponse();
+
+        tag = new CountryTag();
+        tag.setPageContext(new MockPageContext(new MockServletContext(), request, response));
+        tag.setName("address.country");
+    }
+
+    @Benchmark
+    public List<LabelValue> buildCountryList() {
+        return tag.buildCountryList(locale);
+    }
+
+    @Benchmark
+    public int render() throws JspException {
+        int result = tag.doStartTag();
+        response.resetBuffer();
+        return result;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(CountryTagBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
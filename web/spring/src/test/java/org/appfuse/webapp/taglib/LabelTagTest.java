@@ -0,0 +1,87 @@
+package org.appfuse.webapp.taglib;
+
+import org.appfuse.model.User;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockPageContext;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+import org.springmodules.validation.commons.DefaultValidatorFactory;
+
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+
+public class LabelTagTest {
+    private StaticWebApplicationContext ctx;
+    private MockHttpServletRequest request;
+
+    @Before
+    public void setUp() throws Exception {
+        DefaultValidatorFactory validatorFactory = new DefaultValidatorFactory();
+        validatorFactory.setValidationConfigLocations(new Resource[] {
+                new FileSystemResource("src/main/webapp/WEB-INF/validation.xml"),
+                new FileSystemResource("src/main/webapp/WEB-INF/validator-rules.xml"),
+                new FileSystemResource("src/main/webapp/WEB-INF/validator-rules-custom.xml")
+        });
+        validatorFactory.afterPropertiesSet();
+
+        MockServletContext servletContext = new MockServletContext();
+        ctx = new StaticWebApplicationContext();
+        ctx.setServletContext(servletContext);
+        ctx.getBeanFactory().registerSingleton("validatorFactory", validatorFactory);
+        ctx.refresh();
+        ctx.getStaticMessageSource().addMessage("user.username", Locale.ENGLISH, "Username");
+
+        request = new MockHttpServletRequest(servletContext);
+        request.addPreferredLocale(Locale.ENGLISH);
+        request.setAttribute(DispatcherServlet.WEB_APPLICATION_CONTEXT_ATTRIBUTE, ctx);
+    }
+
+    @Test
+    public void testRequiredField() throws Exception {
+        assertEquals("<label for=\"username\" class=\"required\">Username <span class=\"required\">*</span></label>",
+                render("user.username"));
+    }
+
+    @Test
+    public void testFieldWithErrors() throws Exception {
+        BindingResult errors = new BeanPropertyBindingResult(new User(), "user");
+        errors.rejectValue("username", "errors.required");
+        request.setAttribute(BindingResult.MODEL_KEY_PREFIX + "user", errors);
+
+        assertEquals("<label for=\"username\" class=\"required error\">Username <span class=\"required\">*</span></label>",
+                render("user.username"));
+    }
+
+    @Test
+    public void testMissingMessage() throws Exception {
+        assertEquals("<label for=\"email\" class=\"required\">???user.email??? <span class=\"required\">*</span></label>",
+                render("user.email"));
+    }
+
+    @Test
+    public void testLabelIsCachedPerContext() throws Exception {
+        String label = render("user.username");
+        ctx.getStaticMessageSource().addMessage("user.username", Locale.ENGLISH, "Login");
+        assertEquals(label, render("user.username"));
+    }
+
+    private String render(String key) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockPageContext pageContext = new MockPageContext(ctx.getServletContext(), request, response);
+        LabelTag tag = new LabelTag();
+        tag.setPageContext(pageContext);
+        tag.setKey(key);
+        tag.doStartTag();
+        pageContext.getOut().flush();
+        return response.getContentAsString();
+    }
+}
@@ -9,14 +9,13 @@ import org.appfuse.model.User;
 import org.appfuse.service.MailEngine;
 import org.appfuse.service.RoleManager;
 import org.appfuse.service.UserManager;
+import org.appfuse.webapp.util.FlashMessages;
 import org.springframework.mail.SimpleMailMessage;
 
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 
@@ -96,18 +95,13 @@ public class BaseAction extends ActionSupport {
     }
 
     /**
-     * Save the message in the session, appending if messages already exist
+     * Save the message for the next page, appending if messages already exist
      *
-     * @param msg the message to put in the session
+     * @param msg the message to show
+     * @see FlashMessages
      */
-    @SuppressWarnings("unchecked")
     protected void saveMessage(String msg) {
-        List messages = (List) getRequest().getSession().getAttribute("messages");
-        if (messages == null) {
-            messages = new ArrayList();
-        }
-        messages.add(msg);
-        getRequest().getSession().setAttribute("messages", messages);
+        FlashMessages.add(getRequest(), "messages", msg);
     }
 
     /**
@@ -1,6 +1,7 @@
 package org.appfuse.webapp.action;
 
 import org.appfuse.model.User;
+import org.appfuse.webapp.util.FlashMessages;
 import org.appfuse.webapp.util.RequestUtil;
 import org.springframework.mail.MailException;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -74,14 +75,20 @@ public class PasswordHintAction extends BaseAction {
             log.warn(e.getMessage());
             args.add(username);
             addActionError(getText("login.passwordHint.error", args));
-            getSession().setAttribute("errors", getActionErrors());
+            saveErrors();
             return INPUT;
         } catch (MailException me) {
             addActionError(me.getCause().getLocalizedMessage());
-            getSession().setAttribute("errors", getActionErrors());
+            saveErrors();
             return INPUT;
         }
 
         return SUCCESS;
     }
+
+    private void saveErrors() {
+        for (String error : getActionErrors()) {
+            FlashMessages.add(getRequest(), "errors", error);
+        }
+    }
 }
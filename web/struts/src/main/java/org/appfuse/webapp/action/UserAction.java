@@ -40,6 +40,8 @@ public class UserAction extends BaseAction implements Preparable {
         // prevent failures on new
         if (getRequest().getMethod().equalsIgnoreCase("post") && (!"".equals(getRequest().getParameter("user.id")))) {
             user = userManager.getUser(getRequest().getParameter("user.id"));
+            // the password bound next is compared with the stored one, so saving needn't read it again
+            user.resetPasswordChanged();
         }
     }
 
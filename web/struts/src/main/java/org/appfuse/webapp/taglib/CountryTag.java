@@ -1,15 +1,12 @@
 package org.appfuse.webapp.taglib;
 
 import org.appfuse.model.LabelValue;
+import org.appfuse.webapp.util.CountryCatalog;
 import org.displaytag.tags.el.ExpressionEvaluator;
 
 import javax.servlet.jsp.JspException;
 import javax.servlet.jsp.tagext.TagSupport;
 import java.io.IOException;
-import java.text.Collator;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
 
@@ -62,9 +59,9 @@ public class CountryTag extends TagSupport {
         }
 
         Locale userLocale = pageContext.getRequest().getLocale();
-        List countries = this.buildCountryList(userLocale);
 
         if (scope != null) {
+            List countries = this.buildCountryList(userLocale);
             if (scope.equals("page")) {
                 pageContext.setAttribute(name, countries);
             } else if (scope.equals("request")) {
@@ -77,7 +74,8 @@ public class CountryTag extends TagSupport {
                 throw new JspException("Attribute 'scope' must be: page, request, session or application");
             }
         } else {
-            StringBuilder sb = new StringBuilder();
+            String options = CountryCatalog.getInstance(userLocale).getOptions(selected);
+            StringBuilder sb = new StringBuilder(options.length() + 256);
             sb.append("<select name=\"").append(name).append("\" id=\"").append(name).append("\" class=\"form-control\">\n");
 
             if (prompt != null) {
@@ -85,17 +83,7 @@ public class CountryTag extends TagSupport {
                 sb.append(eval.evalString("prompt", prompt)).append("</option>\n");
             }
 
-            for (Object country1 : countries) {
-                LabelValue country = (LabelValue) country1;
-                sb.append("    <option value=\"").append(country.getValue()).append("\"");
-
-                if ((selected != null) && selected.equals(country.getValue())) {
-                    sb.append(" selected=\"selected\"");
-                }
-
-                sb.append(">").append(country.getLabel()).append("</option>\n");
-            }
-
+            sb.append(options);
             sb.append("</select>");
 
             try {
@@ -124,62 +112,9 @@ public class CountryTag extends TagSupport {
      *
      * @param locale The Locale used to localize the country names.
      *
-     * @return List of LabelValues for all available countries.
+     * @return List of LabelValues for all available countries, shared and not to be modified.
      */
-    @SuppressWarnings("unchecked")
     protected List<LabelValue> buildCountryList(Locale locale) {
-        final Locale[] available = Locale.getAvailableLocales();
-
-        List<LabelValue> countries = new ArrayList<LabelValue>();
-
-        for (Locale anAvailable : available) {
-            final String iso = anAvailable.getCountry();
-            final String name = anAvailable.getDisplayCountry(locale);
-
-            if (!"".equals(iso) && !"".equals(name)) {
-                LabelValue country = new LabelValue(name, iso);
-
-                if (!countries.contains(country)) {
-                    countries.add(new LabelValue(name, iso));
-                }
-            }
-        }
-
-        Collections.sort(countries, new LabelValueComparator(locale));
-
-        return countries;
-    }
-
-    /**
-     * Class to compare LabelValues using their labels with
-     * locale-sensitive behaviour.
-     */
-    public class LabelValueComparator implements Comparator {
-        private Comparator c;
-
-        /**
-         * Creates a new LabelValueComparator object.
-         *
-         * @param locale The Locale used for localized String comparison.
-         */
-        public LabelValueComparator(final Locale locale) {
-            c = Collator.getInstance(locale);
-        }
-
-        /**
-         * Compares the localized labels of two LabelValues.
-         *
-         * @param o1 The first LabelValue to compare.
-         * @param o2 The second LabelValue to compare.
-         *
-         * @return The value returned by comparing the localized labels.
-         */
-        @SuppressWarnings("unchecked")
-        public final int compare(Object o1, Object o2) {
-            LabelValue lhs = (LabelValue) o1;
-            LabelValue rhs = (LabelValue) o2;
-
-            return c.compare(lhs.getLabel(), rhs.getLabel());
-        }
+        return CountryCatalog.getInstance(locale).getCountries();
     }
 }
@@ -29,7 +29,7 @@
             <c:out value="${msg}"/><br/>
         </c:forEach>
     </div>
-    <c:remove var="messages" scope="session"/>
+    <c:remove var="messages"/>
 </c:if>
 
 <% } else { %>
@@ -42,6 +42,6 @@
             <c:out value="${error}"/><br/>
         </c:forEach>
     </div>
-    <c:remove var="errors" scope="session"/>
+    <c:remove var="errors"/>
 </c:if>
 <% } %>
\ No newline at end of file
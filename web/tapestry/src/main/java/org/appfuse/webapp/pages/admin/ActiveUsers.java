@@ -7,10 +7,12 @@ import org.apache.tapestry5.ioc.annotations.Inject;
 import org.apache.tapestry5.services.BeanModelSource;
 import org.apache.tapestry5.services.Context;
 import org.apache.tapestry5.services.PageRenderLinkSource;
-import org.appfuse.model.User;
+import org.appfuse.webapp.listener.ActiveUser;
+import org.appfuse.webapp.listener.ActiveUserRegistry;
 import org.appfuse.webapp.pages.Home;
 
-import java.util.Set;
+import java.util.Collections;
+import java.util.List;
 
 /**
  * Lists all active users
@@ -24,7 +26,7 @@ public class ActiveUsers {
     private Messages messages;
 
     @Property
-    private User currentUser;
+    private ActiveUser currentUser;
 
     @Inject
     private BeanModelSource beanModelSource;
@@ -36,8 +38,8 @@ public class ActiveUsers {
     private Context context;
 
 
-    public BeanModel<User> getModel() {
-        final BeanModel<User> model = beanModelSource.createDisplayModel(User.class, messages);
+    public BeanModel<ActiveUser> getModel() {
+        final BeanModel<ActiveUser> model = beanModelSource.createDisplayModel(ActiveUser.class, messages);
         model.include("username");
         model.add("fullname");
         // Set labels
@@ -47,9 +49,9 @@ public class ActiveUsers {
         return model;
     }
 
-    @SuppressWarnings("unchecked")
-    public Set<User> getActiveUsers() {
-        return (Set<User>) context.getAttribute("userNames");
+    public List<ActiveUser> getActiveUsers() {
+        ActiveUserRegistry registry = (ActiveUserRegistry) context.getAttribute(ActiveUserRegistry.REGISTRY_KEY);
+        return (registry != null) ? registry.getUsers() : Collections.<ActiveUser>emptyList();
     }
 
     public String getHomeLink() {
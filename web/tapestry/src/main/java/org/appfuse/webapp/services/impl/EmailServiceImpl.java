@@ -38,10 +38,12 @@ public class EmailServiceImpl implements EmailService {
         }
         msg.append("\n\nLogin at: ").append(url);
 
-        simpleMailMessage.setTo(user.getFullName() + "<" + user.getEmail() + ">");
-        simpleMailMessage.setSubject(subject);
-        simpleMailMessage.setText(msg.toString());
+        // the service is a singleton, so each mail gets its own copy of the template
+        SimpleMailMessage email = new SimpleMailMessage(simpleMailMessage);
+        email.setTo(user.getFullName() + "<" + user.getEmail() + ">");
+        email.setSubject(subject);
+        email.setText(msg.toString());
 
-        mailEngine.send(simpleMailMessage);
+        mailEngine.send(email);
     }
 }
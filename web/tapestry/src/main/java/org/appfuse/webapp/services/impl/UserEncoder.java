@@ -35,6 +35,8 @@ public class UserEncoder implements ValueEncoder<User> {
         // Reset confirmed password
         if (user != null) {
             user.setConfirmPassword(user.getPassword());
+            // the password bound next is compared with the stored one, so saving needn't read it again
+            user.resetPasswordChanged();
         }
 
         return user;
@@ -33,6 +33,8 @@ public class CurrentUserEdit extends AbstractUserEdit {
         User user = getUserManager().getUserByUsername(getCurrentUserUsername());
         //TODO: An ugly hack required to not force user to enter his password on each edition. Will be fixed in APF-1370
         user.setConfirmPassword(user.getPassword());
+        // Wicket only sets the password if it was edited, so the user has to know it holds the stored one
+        user.resetPasswordChanged();
         setUser(user);
 
         super.onInitialize();
@@ -1,6 +1,7 @@
 package org.appfuse.webapp.pages.admin;
 
 import org.apache.wicket.extensions.markup.html.repeater.data.sort.SortOrder;
+import org.apache.wicket.extensions.markup.html.repeater.util.SortParam;
 import org.apache.wicket.extensions.markup.html.repeater.util.SortableDataProvider;
 import org.apache.wicket.model.IModel;
 import org.apache.wicket.model.LoadableDetachableModel;
@@ -9,7 +10,7 @@ import org.appfuse.service.UserManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.*;
+import java.util.Iterator;
 
 import static org.appfuse.webapp.util.NumberRangeUtil.checkIfLongWithinIntegerRange;
 import static org.springframework.util.Assert.notNull;
@@ -45,24 +46,15 @@ public class UserDataProvider extends SortableDataProvider<User, String> {
     }
 
     public Iterator<? extends User> iterator(long first, long count) {
-        //TODO: MZA: How sorting works in Tapestry/Spring MVC? - also in Java?
-        List<User> readUsers = userManager.search(searchFilter);
-//            Comparator<User> userComparator = UserComparatorResolver.getComparatorBySoftProperty(
-//                    getSort().getProperty(), getSort().isAscending());
-//            Collections.sort(readUsers, userComparator);
-        Collections.sort(readUsers, getSortableUserDataProviderComparator());
-
         checkIfLongWithinIntegerRange(first, count, first + count);
-        return readUsers.subList((int)first, (int)first + (int)count).iterator();
-    }
-
-    private SortableDataProviderComparator<User> getSortableUserDataProviderComparator() {
-        return SortableDataProviderComparator.getInstanceForSortParam(getSort());
+        SortParam<String> sort = getSort();
+        String sortProperty = sort != null ? sort.getProperty() : null;
+        boolean ascending = sort == null || sort.isAscending();
+        return userManager.search(searchFilter, (int) first, (int) count, sortProperty, ascending).iterator();
     }
 
     public long size() {
-        //TODO: MZA: Not very optimal...
-        return userManager.search(searchFilter).size();
+        return userManager.searchCount(searchFilter);
     }
 
     public IModel<User> model(final User user) {
@@ -74,6 +66,8 @@ public class UserDataProvider extends SortableDataProvider<User, String> {
                 //TODO: An ugly hack required to not force user to enter his password on each edition.
                 // Will be fixed in APF-1370
                 loadedUser.setConfirmPassword(loadedUser.getPassword());
+                // Wicket only sets the password if it was edited, so the user has to know it holds the stored one
+                loadedUser.resetPasswordChanged();
                 return loadedUser;
             }
         };
@@ -103,7 +103,8 @@ public class UserList extends AbstractWebPage {
     private List<IColumn<User, String>> createColumns() {
         List<IColumn<User, String>> userListColumns = new ArrayList<IColumn<User, String>>();
         userListColumns.add(createLinkableColumn("user.username", "username", "username"));
-        userListColumns.add(createColumn("activeUsers.fullName", "fullName", "fullName"));
+        // not sortable: neither the database nor the search index has the transient full name
+        userListColumns.add(createColumn("activeUsers.fullName", null, "fullName"));
         userListColumns.add(createColumn("user.email", "email", "email"));
         //TODO: MZA: Is there a "boolean" column? Check version from PhoneBook
         userListColumns.add(createColumn("user.enabled", "enabled", "enabled"));